@@ -0,0 +1,218 @@
+package console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import logic.Game;
+
+/**
+ * Draws the board in place on an ANSI terminal. The first frame, and any frame
+ * after the terminal is resized, clears the screen and paints every cell;
+ * later frames only reposition the cursor to cells whose value changed since
+ * the previous frame, so a move typically writes a few dozen bytes instead of
+ * the whole board. Resizes are detected by one daemon thread shared by all
+ * renderers, which polls the terminal size, so rendering never waits for it.
+ */
+public class AnsiRenderer {
+
+	private static final String ESC = "\u001b[";
+	private static final int CELL_WIDTH = 6; // Characters per tile, including padding
+	private static final long SIZE_CHECK_INTERVAL = 1000; // Terminal size poll interval in ms
+
+	// 256-colour backgrounds per tile exponent, approximating the GUI palette
+	private static final int[] BACKGROUNDS = { 250, 255, 230, 216, 209, 203, 202, 222, 221, 220, 214, 178, 172 };
+
+	private static Thread sizePoller; // Polls the terminal size, started with the first renderer on a console
+	private static volatile int resizes; // Terminal size changes seen by the poller, written by it only
+
+	private final Writer out; // Terminal output, flushed once per frame
+	private final StringBuilder frame = new StringBuilder(1024); // Reused frame buffer
+	private int[] previous; // Tile values of the last frame, null forces a full redraw
+	private int previousScore = -1; // Score shown in the last frame
+	private int previousSize; // Board size of the last frame
+	private int seenResizes; // Value of resizes at the last frame
+	private int cursorRow; // Cursor row while a frame is built, zero when unknown
+	private int cursorColumn; // Cursor column while a frame is built
+	private int background = -1; // Background colour while a frame is built, -1 for default
+	private int foreground = -1; // Foreground colour while a frame is built, -1 for default
+
+	/**
+	 * Creates a renderer writing to the given terminal output.
+	 *
+	 * @param out The terminal output.
+	 */
+	public AnsiRenderer(Writer out) {
+		this.out = out;
+		if (System.console() != null)
+			startSizePoller();
+		seenResizes = resizes;
+	}
+
+	/**
+	 * Forces the next frame to clear the screen and redraw every cell, for
+	 * example after other output has scrolled the terminal.
+	 */
+	public void invalidate() {
+		previous = null;
+	}
+
+	/**
+	 * Draws the current state of the game, writing only what changed since the
+	 * previous frame, and leaves the cursor on a cleared prompt line below the
+	 * board.
+	 *
+	 * @param game The game to draw.
+	 * @throws IOException If writing to the terminal fails.
+	 */
+	public void render(Game game) throws IOException {
+		int size = game.getBoardSize();
+		boolean resized = terminalResized();
+		frame.setLength(0);
+		cursorRow = 0;
+		background = -1;
+		foreground = -1;
+		if (resized || previous == null || previousSize != size) {
+			previous = new int[size * size];
+			previousSize = size;
+			previousScore = -1;
+			frame.append(ESC).append("2J");
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					previous[i * size + j] = game.getTileValue(i, j);
+					appendCell(i, j, previous[i * size + j]);
+				}
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					int value = game.getTileValue(i, j);
+					if (previous[i * size + j] != value) {
+						previous[i * size + j] = value;
+						appendCell(i, j, value);
+					}
+				}
+			}
+		}
+
+		if (background != -1 || foreground != -1)
+			frame.append(ESC).append("0m");
+		if (game.getScore() != previousScore) {
+			previousScore = game.getScore();
+			moveTo(size + 2, 1);
+			frame.append(ESC).append("2KScore: ").append(previousScore);
+		}
+		moveTo(size + 4, 1);
+		frame.append(ESC).append("2K");
+		out.append(frame);
+		out.flush();
+	}
+
+	/**
+	 * Appends the escape sequences drawing a single tile.
+	 *
+	 * @param row   The row of the tile.
+	 * @param col   The column of the tile.
+	 * @param value The value of the tile.
+	 */
+	private void appendCell(int row, int col, int value) {
+		moveTo(row + 1, col * CELL_WIDTH + 1);
+		int exponent = value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+		int color = BACKGROUNDS[Math.min(exponent, BACKGROUNDS.length - 1)];
+		if (color != background) {
+			frame.append(ESC).append("48;5;").append(color).append('m');
+			background = color;
+		}
+		int textColor = exponent <= 2 ? 30 : 97;
+		if (textColor != foreground) {
+			frame.append(ESC).append(textColor).append('m');
+			foreground = textColor;
+		}
+
+		String text = value == 0 ? "" : Integer.toString(value);
+		int padding = CELL_WIDTH - text.length();
+		for (int i = padding / 2; i > 0; i--) {
+			frame.append(' ');
+		}
+		frame.append(text);
+		for (int i = padding - padding / 2; i > 0; i--) {
+			frame.append(' ');
+		}
+		cursorColumn += CELL_WIDTH;
+	}
+
+	/**
+	 * Appends a cursor positioning sequence, unless the cursor is already at
+	 * the requested position.
+	 *
+	 * @param row    The one-based terminal row.
+	 * @param column The one-based terminal column.
+	 */
+	private void moveTo(int row, int column) {
+		if (row == cursorRow && column == cursorColumn)
+			return;
+		frame.append(ESC).append(row).append(';').append(column).append('H');
+		cursorRow = row;
+		cursorColumn = column;
+	}
+
+	/**
+	 * Reports whether the terminal has been resized since the previous frame.
+	 *
+	 * @return True if the terminal has been resized.
+	 */
+	private boolean terminalResized() {
+		int seen = resizes;
+		if (seen == seenResizes)
+			return false;
+		seenResizes = seen;
+		return true;
+	}
+
+	/**
+	 * Starts the daemon thread polling the terminal size once per second,
+	 * unless it is already running.
+	 */
+	private static synchronized void startSizePoller() {
+		if (sizePoller != null)
+			return;
+		sizePoller = new Thread(() -> {
+			String size = probeTerminalSize();
+			try {
+				while (true) {
+					Thread.sleep(SIZE_CHECK_INTERVAL);
+					String current = probeTerminalSize();
+					if (!current.equals(size)) {
+						size = current;
+						resizes++;
+					}
+				}
+			} catch (InterruptedException e) {
+				// Stopped
+			}
+		}, "terminal-size");
+		sizePoller.setDaemon(true);
+		sizePoller.start();
+	}
+
+	/**
+	 * Asks the controlling terminal for its size.
+	 *
+	 * @return The terminal size as "rows columns", or an empty string if it is
+	 *         unknown.
+	 */
+	private static String probeTerminalSize() {
+		try {
+			Process stty = new ProcessBuilder("sh", "-c", "stty size < /dev/tty").redirectErrorStream(true).start();
+			try (InputStream in = stty.getInputStream()) {
+				String size = new String(in.readAllBytes()).trim();
+				return stty.waitFor() == 0 ? size : "";
+			}
+		} catch (IOException e) {
+			return "";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "";
+		}
+	}
+}
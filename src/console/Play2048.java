@@ -1,5 +1,7 @@
 package console;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.Scanner;
 
 import logic.Board;
@@ -15,9 +17,18 @@ public class Play2048 {
      * The main method that serves as the entry point for the 2048 console application.
      * It provides the game's main menu and manages the game loop.
      *
-     * @param args Command line arguments (not used in this application).
+     * @param args Command line arguments; {@code --ansi} alone draws the board
+     *             in place, any other arguments select the scripted batch mode
+     *             of {@link ScriptedPlay}.
      */
 	public static void main(String[] args) {
+		AnsiRenderer renderer = null;
+		if (args.length == 1 && args[0].equals("--ansi")) {
+			renderer = new AnsiRenderer(new OutputStreamWriter(System.out));
+		} else if (args.length > 0) {
+			ScriptedPlay.run(args);
+			return;
+		}
 		Scanner scanner = new Scanner(System.in);
 		System.out.println("Do you want to load a saved game (L) or start a new game (N)?");
 		String gameChoice = scanner.next().toUpperCase();
@@ -70,7 +81,10 @@ public class Play2048 {
 		
 		System.out.println("A - Left, D - right, W - up, s - down, E - pause, P - save game");
 		while (true) {
-			displayBoard(game, game.getBoardSize());
+			if (renderer != null)
+				render(renderer, game);
+			else
+				displayBoard(game, game.getBoardSize());
 
 			String userInput = scanner.next().toUpperCase();
 			if (userInput.equals("E")) {
@@ -80,8 +94,13 @@ public class Play2048 {
 
 			else
 				move(userInput, game);
-			if (game.hasReached2048())
+			if (userInput.equals("P") && renderer != null)
+				renderer.invalidate();
+			if (game.hasReached2048()) {
 				answer = doesUserWantToContinue(answer);
+				if (renderer != null)
+					renderer.invalidate();
+			}
 
 			if (game.isGameOver(answer)) {
 				end(game.getScore());
@@ -93,6 +112,20 @@ public class Play2048 {
 
 	}
 	
+	/**
+	 * Draws the board in place with the ANSI renderer.
+	 *
+	 * @param renderer The renderer drawing the board.
+	 * @param game     The game instance whose board is to be displayed.
+	 */
+	private static void render(AnsiRenderer renderer, Game game) {
+		try {
+			renderer.render(game);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
      * Displays the current state of the game board in the console.
      *
@@ -100,11 +133,26 @@ public class Play2048 {
      * @param size The size of the game board.
      */
 	public static void displayBoard(Game game,int size) {
+		StringBuilder frame = new StringBuilder(size * size * 6);
+		renderBoard(game, size, frame);
+		System.out.print(frame);
+		System.out.flush();
+	}
+
+	/**
+	 * Renders the game board into a buffer, one line per row with tab separated
+	 * tile values.
+	 *
+	 * @param game  The game instance whose board is to be rendered.
+	 * @param size  The size of the game board.
+	 * @param frame The buffer the board is appended to.
+	 */
+	static void renderBoard(Game game, int size, StringBuilder frame) {
 		for (int i = 0; i < size; i++) {
 			for (int j = 0; j < size; j++) {
-				System.out.print( game.getTileValue(i, j)+ "\t");
+				frame.append(game.getTileValue(i, j)).append('\t');
 			}
-			System.out.println();
+			frame.append('\n');
 		}
 	}
 
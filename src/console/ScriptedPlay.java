@@ -0,0 +1,225 @@
+package console;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+import logic.Game;
+
+/**
+ * Non-interactive console mode that applies a move script to a game without
+ * prompting. Scripts are streams of W, A, S and D characters (case is
+ * ignored); whitespace is skipped and a '#' starts a comment that runs to the
+ * end of the line. Frames are rendered into one reused buffer and written with
+ * a single flush, drawn in place with {@code --ansi}, or not rendered at all
+ * with {@code --quiet}.
+ */
+public class ScriptedPlay {
+
+	/** The command line options of batch mode. */
+	static final String USAGE = "Usage: [--script <file|->] [--size <4|5>] [--load <name>] [--ansi] [--quiet]";
+
+	private final Game game; // The game the script is applied to
+	private final Writer out; // Buffered console output, flushed once per frame
+	private final boolean quiet; // Skip rendering of intermediate frames
+	private AnsiRenderer renderer; // In-place renderer, null for plain text frames
+	private final StringBuilder frame = new StringBuilder(256); // Reused frame buffer
+	private long moves; // Moves read from the script
+	private long changedMoves; // Moves that changed the board
+	private boolean gameOver; // Whether the script ended the game
+
+	/**
+	 * Creates a runner for the given game.
+	 *
+	 * @param game  The game to apply moves to.
+	 * @param out   The output the frames and summary are written to.
+	 * @param quiet True to skip rendering the board after each move.
+	 */
+	public ScriptedPlay(Game game, Writer out, boolean quiet) {
+		this.game = game;
+		this.out = out;
+		this.quiet = quiet;
+	}
+
+	/**
+	 * Draws intermediate frames in place with the given renderer instead of
+	 * printing them as plain text.
+	 *
+	 * @param renderer The ANSI renderer to use.
+	 */
+	public void setRenderer(AnsiRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	/**
+	 * Entry point for batch mode. Recognised arguments are
+	 * {@code --script <file|->}, {@code --size <4|5>}, {@code --load <name>},
+	 * {@code --ansi} and {@code --quiet}. The script defaults to standard input.
+	 *
+	 * @param args The command line arguments.
+	 */
+	public static void run(String[] args) {
+		String script = "-";
+		String load = null;
+		int size = 4;
+		boolean quiet = false;
+		boolean ansi = false;
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if ((option.equals("--script") || option.equals("--size") || option.equals("--load"))
+					&& i + 1 == args.length) {
+				System.err.println("Error: Option " + option + " needs a value. " + USAGE);
+				return;
+			}
+			switch (option) {
+			case "--script":
+				script = args[++i];
+				break;
+			case "--size":
+				try {
+					size = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					size = 0; // Rejected below
+				}
+				break;
+			case "--load":
+				load = args[++i];
+				break;
+			case "--quiet":
+				quiet = true;
+				break;
+			case "--ansi":
+				ansi = true;
+				break;
+			default:
+				System.err.println("Error: Unknown option " + option + ". " + USAGE);
+				return;
+			}
+		}
+		if (size != 4 && size != 5) {
+			System.err.println("Error: Board size must be 4 or 5. " + USAGE);
+			return;
+		}
+
+		Game game = load != null ? new Game(load) : new Game(size);
+		if (load != null && game.getLoadedSize() == 0) {
+			System.err.println("Error: Cannot load the saved game " + load + ". " + USAGE);
+			return;
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)), 1 << 16);
+		try (Reader in = script.equals("-") ? new InputStreamReader(System.in)
+				: new FileReader(script)) {
+			ScriptedPlay play = new ScriptedPlay(game, out, quiet);
+			if (ansi)
+				play.setRenderer(new AnsiRenderer(out));
+			play.play(new BufferedReader(in, 1 << 16));
+		} catch (IOException e) {
+			System.err.println("Error: Failed to run the script " + script + ".");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads the script until it ends or the game is over, then writes the
+	 * summary.
+	 *
+	 * @param script The move script.
+	 * @throws IOException If reading the script or writing output fails.
+	 */
+	public void play(Reader script) throws IOException {
+		long start = System.nanoTime();
+		int c;
+		while (!gameOver && (c = script.read()) != -1) {
+			if (c == '#') {
+				while (c != -1 && c != '\n') {
+					c = script.read();
+				}
+				continue;
+			}
+			if (!apply(c))
+				continue;
+
+			if (game.isGameOver(true)) // Scripts always keep playing past 2048
+				gameOver = true;
+			if (quiet)
+				continue;
+			if (renderer != null) {
+				renderer.render(game);
+			} else {
+				frame.setLength(0);
+				Play2048.renderBoard(game, game.getBoardSize(), frame);
+				frame.append('\n');
+				out.append(frame);
+				out.flush();
+			}
+		}
+		writeSummary(System.nanoTime() - start);
+	}
+
+	/**
+	 * Applies one script character to the game.
+	 *
+	 * @param c The script character.
+	 * @return True if the character was a move, false if it was skipped.
+	 */
+	private boolean apply(int c) {
+		boolean changed;
+		switch (c) {
+		case 'W':
+		case 'w':
+			changed = game.moveUp();
+			break;
+		case 'S':
+		case 's':
+			changed = game.moveDown();
+			break;
+		case 'A':
+		case 'a':
+			changed = game.moveLeft();
+			break;
+		case 'D':
+		case 'd':
+			changed = game.moveRight();
+			break;
+		default:
+			return false;
+		}
+		moves++;
+		if (changed)
+			changedMoves++;
+		return true;
+	}
+
+	/**
+	 * Writes the final board and run statistics.
+	 *
+	 * @param nanos The time spent applying the script.
+	 * @throws IOException If writing fails.
+	 */
+	private void writeSummary(long nanos) throws IOException {
+		int size = game.getBoardSize();
+		int maxTile = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				maxTile = Math.max(maxTile, game.getTileValue(i, j));
+			}
+		}
+		frame.setLength(0);
+		Play2048.renderBoard(game, size, frame);
+		frame.append("Moves: ").append(moves).append(" (").append(moves - changedMoves).append(" no-op)\n");
+		frame.append("Score: ").append(game.getScore()).append('\n');
+		frame.append("Max tile: ").append(maxTile).append('\n');
+		frame.append("Game over: ").append(gameOver ? "yes" : "no").append('\n');
+		frame.append("Elapsed: ").append(nanos / 1_000_000).append(" ms (")
+				.append(nanos == 0 ? 0 : moves * 1_000_000_000L / nanos).append(" moves/s)\n");
+		out.append(frame);
+		out.flush();
+	}
+}
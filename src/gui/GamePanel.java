@@ -2,7 +2,11 @@ package gui;
 
 import javax.swing.*;
 
+import logic.BoardSnapshot;
+import logic.Direction;
 import logic.Game;
+import logic.ai.EvilSpawner;
+import logic.ai.HintEngine;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -26,6 +30,8 @@ public class GamePanel extends JFrame {
 	private boolean answer = true; // Flag for game continuation after reaching 2048
 	private boolean isGameLoaded = false; // Flag for checking if a game is loaded
 	private String loadedGame = ""; // Filename of the loaded game
+	private final HintEngine hintEngine = new HintEngine(); // Background move hints
+	private final HintOverlay hintOverlay = new HintOverlay(); // Arrow drawn over the board
 
 	/**
 	 * Constructs a GamePanel for a new game with the specified size. Initializes
@@ -34,9 +40,22 @@ public class GamePanel extends JFrame {
 	 * @param size The size of the game board (either 4x4 or 5x5).
 	 */
 	public GamePanel(int size) {
+		this(size, false);
+	}
+
+	/**
+	 * Constructs a GamePanel for a new game with the specified size, optionally
+	 * letting an adversary choose where new tiles appear.
+	 *
+	 * @param size The size of the game board (either 4x4 or 5x5).
+	 * @param evil Whether new tiles are spawned by an {@link EvilSpawner}.
+	 */
+	public GamePanel(int size, boolean evil) {
 		this.size = size;
 
 		game = new Game(size);
+		if (evil)
+			game.setSpawner(new EvilSpawner(size));
 		tileLabels = new JLabel[size][size];
 
 		GamePanelSettings();
@@ -87,6 +106,8 @@ public class GamePanel extends JFrame {
 
 		add(createHeaderPanel(), BorderLayout.NORTH);
 		add(createBoardPanel(), BorderLayout.CENTER);
+		setGlassPane(hintOverlay);
+		hintEngine.positionChanged(game.snapshot());
 	}
 
 	/**
@@ -109,6 +130,7 @@ public class GamePanel extends JFrame {
 		inputMap.put(downKey, "MOVE_DOWN");
 		inputMap.put(leftKey, "MOVE_LEFT");
 		inputMap.put(rightKey, "MOVE_RIGHT");
+		inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), "HINT");
 
 		actionMap.put("MOVE_UP", new AbstractAction() {
 			@Override
@@ -134,6 +156,25 @@ public class GamePanel extends JFrame {
 				moveRight();
 			}
 		});
+		actionMap.put("HINT", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				showHint();
+			}
+		});
+	}
+
+	/**
+	 * Shows the suggested move for the current position. The hint engine has
+	 * usually computed it already; otherwise the arrow appears as soon as the
+	 * background search finishes, unless the player moves first.
+	 */
+	private void showHint() {
+		BoardSnapshot position = game.snapshot();
+		hintEngine.whenReady(position, best -> SwingUtilities.invokeLater(() -> {
+			if (position.equals(game.snapshot()))
+				hintOverlay.showHint(best);
+		}));
 	}
 
 	/**
@@ -177,14 +218,18 @@ public class GamePanel extends JFrame {
 	 * continue or end, and updates the board and score display.
 	 */
 	private void updateAfterMove() {
+		hintOverlay.showHint(null);
 		updateBoard();
 		scoreLabel.setText("SCORE: " + game.getScore());
-		if (game.getScore() > Game.getHighScore())
+		if (Warmup.highScoreLoaded() && game.getScore() > Game.getHighScore())
 			bestScoreLabel.setText("BEST: " + game.getScore());
 		checkForContinue();
 		if (!answer || game.isGameOver(answer)) {
 			noMorePossibleMoves();
+			return;
 		}
+		// Published once the 2048 flag has settled, as hints are matched by snapshot
+		hintEngine.positionChanged(game.snapshot());
 	}
 
 	/**
@@ -196,19 +241,32 @@ public class GamePanel extends JFrame {
 	private JPanel createHeaderPanel() {
 		JPanel headerPanel = new JPanel();
 		JButton saveButton = new JButton("Save");
+		JButton hintButton = new JButton("Hint");
 		headerPanel.setLayout(new GridLayout(1, 3, 10, 10));
 		headerPanel.setBackground(new Color(250, 248, 239));
 
 		JLabel gameTitleLabel = createLabel("2048", new Color(237, 197, 63), new Font("Arial", Font.BOLD, 36));
 		scoreLabel = createLabel("SCORE: " + game.getScore(), new Color(250, 248, 239),
 				new Font("Arial", Font.BOLD, 12));
-		bestScoreLabel = createLabel("BEST: " + Game.getHighScore(), new Color(250, 248, 239),
-				new Font("Arial", Font.BOLD, 12));
+		bestScoreLabel = createLabel("BEST: ...", new Color(250, 248, 239), new Font("Arial", Font.BOLD, 12));
+		Warmup.onHighScore(best -> bestScoreLabel.setText("BEST: " + Math.max(best, game.getScore())));
 
 		saveButton.setBackground(new Color(187, 173, 160));
 		saveButton.setForeground(Color.WHITE);
 		saveButton.setFont(new Font("Arial", Font.BOLD, 14));
 		saveButton.setFocusPainted(false);
+		hintButton.setBackground(new Color(187, 173, 160));
+		hintButton.setForeground(Color.WHITE);
+		hintButton.setFont(new Font("Arial", Font.BOLD, 14));
+		hintButton.setFocusPainted(false);
+		hintButton.setFocusable(false);
+		hintButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				showHint();
+			}
+		});
+
 		saveButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -224,6 +282,7 @@ public class GamePanel extends JFrame {
 		headerPanel.add(scoreLabel);
 		headerPanel.add(bestScoreLabel);
 		headerPanel.add(saveButton);
+		headerPanel.add(hintButton);
 
 		return headerPanel;
 	}
@@ -296,7 +355,7 @@ public class GamePanel extends JFrame {
 	 * @param value The value of the tile.
 	 * @return The color associated with the given tile value.
 	 */
-	private Color getTileColor(int value) {
+	static Color getTileColor(int value) {
 		switch (value) {
 		case 2:
 			return new Color(238, 228, 218);
@@ -422,6 +481,7 @@ public class GamePanel extends JFrame {
 	 */
 	private void startNewGame() {
 		Game.saveScore(game.getScore());
+		hintEngine.close();
 		dispose();
 	}
 
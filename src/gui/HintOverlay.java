@@ -0,0 +1,66 @@
+package gui;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+import javax.swing.JComponent;
+
+import logic.Direction;
+
+/**
+ * A transparent layer drawn over the game window that shows the suggested
+ * move as a large arrow in the middle of the board.
+ */
+public class HintOverlay extends JComponent {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] ARROWS = { "\u2191", "\u2193", "\u2190", "\u2192" }; // By direction ordinal
+
+	private Direction direction; // The move shown, null when hidden
+
+	/**
+	 * Creates a hidden overlay.
+	 */
+	public HintOverlay() {
+		setOpaque(false);
+		setVisible(false);
+	}
+
+	/**
+	 * Shows the given move, or hides the overlay if it is null.
+	 *
+	 * @param direction The suggested move.
+	 */
+	public void showHint(Direction direction) {
+		this.direction = direction;
+		setVisible(direction != null);
+		repaint();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (direction == null)
+			return;
+		Graphics2D g2 = (Graphics2D) g.create();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		int side = Math.min(getWidth(), getHeight()) / 3;
+		int x = (getWidth() - side) / 2;
+		int y = (getHeight() - side) / 2;
+		g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.75f));
+		g2.setColor(new Color(119, 110, 101));
+		g2.fillRoundRect(x, y, side, side, side / 4, side / 4);
+		g2.setColor(Color.WHITE);
+		g2.setFont(new Font("Dialog", Font.BOLD, side * 2 / 3));
+		FontMetrics metrics = g2.getFontMetrics();
+		String arrow = ARROWS[direction.ordinal()];
+		g2.drawString(arrow, x + (side - metrics.stringWidth(arrow)) / 2,
+				y + (side - metrics.getHeight()) / 2 + metrics.getAscent());
+		g2.dispose();
+	}
+}
@@ -4,18 +4,18 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
 
 import javax.swing.JButton;
-import javax.swing.JComboBox;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 
-import logic.Game;
 
 /**
  * Represents the main menu panel of the 2048 game.
@@ -28,7 +28,7 @@ class MainMenu extends JPanel {
     private JButton button1;
     private JButton button2;
     private String selectedGame;
-    private static JComboBox<String> savedGamesComboBox;
+    private final ThumbnailCache thumbnails = new ThumbnailCache(); // Thumbnails of saved games
     
     /**
      * Constructs the main menu panel.
@@ -103,20 +103,25 @@ class MainMenu extends JPanel {
         b2.setFocusPainted(false); 
         b1.setBackground(new Color(255, 170, 128));
         b2.setBackground(new Color(255, 170, 128));
+        JCheckBox evil = new JCheckBox("Evil spawns");
+        evil.setToolTipText("New tiles appear where they hurt you most");
+        evil.setFocusPainted(false);
+        evil.setOpaque(false);
         this.add(b1, createConstraints(0, 1));
         this.add(b2, createConstraints(0, 2));
+        this.add(evil, createConstraints(0, 3));
         b1.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 // Modify the existing MainMenu instance to display board size options
-            	 SwingUtilities.invokeLater(() -> new GamePanel(5));
+            	 SwingUtilities.invokeLater(() -> new GamePanel(5, evil.isSelected()));
             }
         });
         b2.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 // Modify the existing MainMenu instance to display board size options
-            	 SwingUtilities.invokeLater(() -> new GamePanel(4));
+            	 SwingUtilities.invokeLater(() -> new GamePanel(4, evil.isSelected()));
             }
         });
 
@@ -126,43 +131,74 @@ class MainMenu extends JPanel {
     
     /**
      * Modifies the panel to display options for loading an existing game.
-     * Provides a combo box for the user to select from available saved games and a button to load the selected game.
+     * Shows a scrollable grid with a thumbnail button for every saved game; clicking one loads it.
+     * A placeholder is shown until the save catalog has been read in the background, and
+     * thumbnails are filled in by the {@link ThumbnailCache} as they become visible.
      */
     private void modifyForLoadGameOptions() {
-        this.removeAll(); 
-
-        
-        Game.savedGames();
-        ArrayList<String> savedGames = Game.savedGames;
-        savedGamesComboBox = new JComboBox<>(savedGames.toArray(new String[0]));
-
-        
-        savedGamesComboBox.setBackground(new Color(187, 173, 160));
-        savedGamesComboBox.setForeground(Color.WHITE);
+        this.removeAll();
+
+        JLabel loading = new JLabel("Loading saved games...", SwingConstants.CENTER);
+        add(loading, createConstraints(0, 0));
+
+        Warmup.onSavedGames(savedGames -> {
+            remove(loading);
+            if (savedGames.isEmpty()) {
+                add(new JLabel("There are no saved games.", SwingConstants.CENTER), createConstraints(0, 0));
+            } else {
+                JPanel grid = new JPanel(new GridLayout(0, 3, 10, 10));
+                grid.setBackground(Color.white);
+                for (String name : savedGames)
+                    grid.add(createThumbnailButton(name));
+
+                JScrollPane scrollPane = new JScrollPane(grid);
+                scrollPane.setBorder(null);
+                scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+                GridBagConstraints gbc = createConstraints(0, 0);
+                gbc.weightx = 1;
+                gbc.weighty = 1;
+                add(scrollPane, gbc);
+            }
+            this.revalidate();
+            this.repaint();
+        });
 
-        add(savedGamesComboBox);
+        this.revalidate();
+        this.repaint();
+    }
 
-        JButton loadButton = new JButton("Load Selected Game");
-        
-       
-        loadButton.setBackground(new Color(187, 173, 160));
-        loadButton.setForeground(Color.WHITE);
-        loadButton.setFont(new Font("Arial", Font.BOLD, 14)); 
-        loadButton.setFocusPainted(false);
-        loadButton.setBorderPainted(false);
-
-        loadButton.addActionListener(new ActionListener() {
+    /**
+     * Creates a button showing the thumbnail and name of a saved game that loads the game when clicked.
+     *
+     * @param name The name of the saved game.
+     * @return JButton The configured button.
+     */
+    private JButton createThumbnailButton(String name) {
+        JButton button = new JButton(name, thumbnails.icon(name));
+        button.setVerticalTextPosition(SwingConstants.BOTTOM);
+        button.setHorizontalTextPosition(SwingConstants.CENTER);
+        button.setBackground(new Color(187, 173, 160));
+        button.setForeground(Color.WHITE);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String selectedGame = (String) savedGamesComboBox.getSelectedItem();
-                SwingUtilities.invokeLater(() -> new GamePanel(selectedGame));
+                SwingUtilities.invokeLater(() -> new GamePanel(name));
             }
         });
+        return button;
+    }
 
-        add(loadButton);
-
-        this.revalidate();
-        this.repaint();
+    /**
+     * Stops the thumbnail workers when the menu leaves its window, which happens
+     * when the window is disposed.
+     */
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        thumbnails.close();
     }
 
     /**
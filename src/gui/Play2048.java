@@ -1,5 +1,7 @@
 package gui;
 
+import java.util.Arrays;
+
 import javax.swing.*;
 
 /**
@@ -12,11 +14,18 @@ public class Play2048 {
 
     /**
      * The main method that serves as the entry point of the application.
-     * It initiates the GUI in the Event Dispatch Thread.
+     * It starts loading scores and saved games in the background and initiates
+     * the GUI in the Event Dispatch Thread without waiting for them.
      * 
-     * @param args Command line arguments, not used in this application.
+     * @param args Command line arguments; {@code --wall [games] [size]} opens the
+     *             {@link SpectatorWall} instead of the main menu.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--wall")) {
+            SpectatorWall.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        Warmup.start();
         SwingUtilities.invokeLater(() -> new Play2048().displayMainMenu());
     }
 
@@ -0,0 +1,297 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.Game;
+import logic.ai.Expectimax;
+
+/**
+ * A window showing a wall of games played by the AI at the same time. Each
+ * game runs on a shared pool of simulation threads and publishes an immutable
+ * {@link BoardSnapshot} after every move; the window polls the snapshots at a
+ * capped frame rate and repaints only the boards whose snapshot changed, all
+ * on one canvas using tile images rendered once per tile size.
+ * <p>
+ * The frame rate, the moves per second of each game and the search depth are
+ * read from the system properties {@code wall.fps} (default 30),
+ * {@code wall.movesPerSecond} (default 10) and {@code wall.depth} (default 2).
+ */
+public class SpectatorWall extends JFrame {
+
+	private static final long serialVersionUID = 1L;
+	/** The command line arguments. */
+	static final String USAGE = "Usage: [games, 16 to 100] [board size]";
+	private static final int GAP = 6; // Pixels between boards
+	private static final int PAD = 2; // Pixels between tiles
+	private static final int MAX_EXPONENT = 17; // Largest tile exponent with a sprite
+
+	private final int size; // Board size of every game
+	private final AtomicReferenceArray<BoardSnapshot> published; // Latest snapshot per game, written by engines
+	private final BoardSnapshot[] painted; // Snapshot per game as last painted, EDT only
+	private final ScheduledExecutorService engines; // Simulation threads
+	private final LongAdder moves = new LongAdder(); // Moves made by all games
+	private final AtomicInteger finished = new AtomicInteger(); // Games that ended and restarted
+	private final Wall wall = new Wall();
+	private long lastMoves; // Move count at the last title update, EDT only
+
+	/**
+	 * Creates and shows a wall of games.
+	 *
+	 * @param games The number of games, 16 to 100.
+	 * @param size  The board size of the games, 1 to {@link Board#MAX_SIZE}.
+	 */
+	public SpectatorWall(int games, int size) {
+		if (games < 16 || games > 100)
+			throw new IllegalArgumentException("The wall shows 16 to 100 games.");
+		if (size < 1 || size > Board.MAX_SIZE)
+			throw new IllegalArgumentException("Board size must be between 1 and " + Board.MAX_SIZE + ".");
+		this.size = size;
+		this.published = new AtomicReferenceArray<>(games);
+		this.painted = new BoardSnapshot[games];
+
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		AtomicInteger count = new AtomicInteger();
+		engines = Executors.newScheduledThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "wall-engine-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, Integer.getInteger("wall.movesPerSecond", 10));
+		Expectimax search = new Expectimax(Integer.getInteger("wall.depth", 2));
+		for (int i = 0; i < games; i++) {
+			Player player = new Player(i, search);
+			published.set(i, player.game.snapshot());
+			engines.scheduleAtFixedRate(player, period * i / games, period, TimeUnit.NANOSECONDS);
+		}
+
+		setTitle("2048 Spectator Wall");
+		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		add(wall);
+		wall.setPreferredSize(new Dimension(1000, 1000));
+		pack();
+		setLocationRelativeTo(null);
+
+		Timer frames = new Timer(1000 / Math.max(1, Integer.getInteger("wall.fps", 30)), e -> wall.repaintChanged());
+		frames.start();
+		Timer stats = new Timer(1000, e -> updateTitle());
+		stats.start();
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				frames.stop();
+				stats.stop();
+				engines.shutdownNow();
+			}
+		});
+		setVisible(true);
+	}
+
+	/**
+	 * Opens a wall. The optional arguments are the number of games and the
+	 * board size.
+	 *
+	 * @param args The command line arguments.
+	 */
+	public static void main(String[] args) {
+		int games;
+		int size;
+		try {
+			games = args.length > 0 ? Integer.parseInt(args[0]) : 36;
+			size = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		} catch (NumberFormatException e) {
+			System.err.println("Error: The arguments must be numbers. " + USAGE);
+			return;
+		}
+		if (games < 16 || games > 100) {
+			System.err.println("Error: The wall shows 16 to 100 games. " + USAGE);
+			return;
+		}
+		if (size < 1 || size > Board.MAX_SIZE) {
+			System.err.println("Error: Board size must be between 1 and " + Board.MAX_SIZE + ". " + USAGE);
+			return;
+		}
+		SwingUtilities.invokeLater(() -> new SpectatorWall(games, size));
+	}
+
+	/**
+	 * Shows the overall move rate in the title once per second.
+	 */
+	private void updateTitle() {
+		long total = moves.sum();
+		setTitle("2048 Spectator Wall - " + published.length() + " games, " + (total - lastMoves) + " moves/s, "
+				+ finished.get() + " finished");
+		lastMoves = total;
+	}
+
+	/**
+	 * Plays one game, a move per run, and publishes every new position.
+	 */
+	private final class Player implements Runnable {
+		private final int index; // Slot of the game on the wall
+		private final Expectimax search; // Shared, stateless searcher
+		private Game game; // Only touched by the thread running this player
+
+		Player(int index, Expectimax search) {
+			this.index = index;
+			this.search = search;
+			this.game = new Game(size);
+		}
+
+		/**
+		 * Makes one move. A failing move is reported and the game restarted,
+		 * since an exception would cancel the periodic task for good.
+		 */
+		@Override
+		public void run() {
+			try {
+				BoardSnapshot position = game.snapshot();
+				Direction best = position.legalMoves() == 0 ? null : search.bestMove(position, () -> false);
+				if (best == null) {
+					finished.incrementAndGet();
+					game = new Game(size);
+				} else {
+					game.move(best);
+					moves.increment();
+				}
+			} catch (RuntimeException e) {
+				System.err.println("Error: Wall game " + index + " failed, restarting it: " + e);
+				game = new Game(size);
+			}
+			published.lazySet(index, game.snapshot());
+		}
+	}
+
+	/**
+	 * The canvas all boards are painted on.
+	 */
+	private final class Wall extends JComponent {
+		private static final long serialVersionUID = 1L;
+		private final BufferedImage[] sprites = new BufferedImage[MAX_EXPONENT + 1]; // Tile images by exponent
+		private int spriteSide; // Tile side the sprites were rendered for
+		private int columns; // Boards per row
+		private int boardSide; // Board side in pixels, without the gap
+		private int tileSide; // Tile side in pixels
+
+		Wall() {
+			setOpaque(true);
+		}
+
+		/**
+		 * Requests a repaint of each board whose published snapshot differs
+		 * from the one painted last.
+		 */
+		void repaintChanged() {
+			layoutBoards();
+			for (int i = 0; i < painted.length; i++) {
+				if (published.get(i) != painted[i])
+					repaint(boardBounds(i));
+			}
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+			layoutBoards();
+			Rectangle clip = g.getClipBounds();
+			if (clip == null)
+				clip = new Rectangle(0, 0, getWidth(), getHeight());
+			Color background = new Color(250, 248, 239);
+			g.setColor(background);
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+			for (int i = 0; i < painted.length; i++) {
+				Rectangle bounds = boardBounds(i);
+				if (!bounds.intersects(clip))
+					continue;
+				BoardSnapshot position = published.get(i);
+				painted[i] = position;
+				g.setColor(new Color(187, 173, 160));
+				g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+				for (int row = 0; row < size; row++) {
+					for (int col = 0; col < size; col++) {
+						int exponent = Math.min(position.exponent(row * size + col), MAX_EXPONENT);
+						g.drawImage(sprite(exponent), bounds.x + PAD + col * (tileSide + PAD),
+								bounds.y + PAD + row * (tileSide + PAD), null);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Computes the grid from the window size and re-renders the sprites
+		 * when the tile size changes.
+		 */
+		private void layoutBoards() {
+			int games = painted.length;
+			columns = (int) Math.ceil(Math.sqrt(games));
+			int rows = (games + columns - 1) / columns;
+			int cell = Math.max(size * 3 + PAD, Math.min(getWidth() / columns, getHeight() / rows));
+			tileSide = Math.max(2, (cell - GAP - PAD) / size - PAD);
+			boardSide = PAD + size * (tileSide + PAD);
+			if (tileSide != spriteSide) {
+				Arrays.fill(sprites, null);
+				spriteSide = tileSide;
+			}
+		}
+
+		private Rectangle boardBounds(int index) {
+			int cell = boardSide + GAP;
+			return new Rectangle(GAP / 2 + (index % columns) * cell, GAP / 2 + (index / columns) * cell, boardSide,
+					boardSide);
+		}
+
+		/**
+		 * Returns the image of a tile, rendering it on first use at the
+		 * current tile size.
+		 *
+		 * @param exponent The tile exponent, 0 for an empty cell.
+		 * @return The tile image.
+		 */
+		private BufferedImage sprite(int exponent) {
+			BufferedImage sprite = sprites[exponent];
+			if (sprite != null)
+				return sprite;
+			sprite = new BufferedImage(tileSide, tileSide, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = sprite.createGraphics();
+			int value = exponent == 0 ? 0 : 1 << exponent;
+			g.setColor(GamePanel.getTileColor(value));
+			g.fillRect(0, 0, tileSide, tileSide);
+			if (value != 0 && tileSide >= 12) {
+				String text = Integer.toString(value);
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setColor(exponent <= 2 ? new Color(119, 110, 101) : Color.WHITE);
+				g.setFont(new Font("Arial", Font.BOLD, Math.max(6, tileSide * 2 / (text.length() + 2))));
+				FontMetrics metrics = g.getFontMetrics();
+				g.drawString(text, (tileSide - metrics.stringWidth(text)) / 2,
+						(tileSide - metrics.getHeight()) / 2 + metrics.getAscent());
+			}
+			g.dispose();
+			sprites[exponent] = sprite;
+			return sprite;
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+import javax.swing.SwingUtilities;
+
+import logic.BoardSnapshot;
+import logic.Game;
+
+/**
+ * Board thumbnails of saved games for the load screen. A thumbnail is rendered
+ * at most once per version of a save: rendered images are written as PNG files
+ * to {@code savedGames/thumbnails}, next to the saves, and a cached file is
+ * used as long as it is newer than its save, so overwriting a save invalidates
+ * it. Reading and rendering happen on a small background pool into images
+ * taken from a fixed pool, and only thumbnails that are actually painted are
+ * requested. All bookkeeping happens on the event dispatch thread, which never
+ * touches the file system: the modification time of a save is read by the
+ * workers, at most every {@link #REFRESH_NANOS} nanoseconds per painted save,
+ * and a save that cannot be rendered is only retried once it changes.
+ */
+class ThumbnailCache {
+
+	/** Width and height of a thumbnail in pixels. */
+	static final int SIDE = 96;
+	/** Time after which a painted thumbnail's save is checked for changes again. */
+	static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+	private static final int IN_MEMORY = 128; // Thumbnails kept in memory
+	private static final File DIRECTORY = new File("savedGames/thumbnails");
+
+	private final ExecutorService workers; // Background readers and renderers
+	private final ArrayDeque<BufferedImage> pool = new ArrayDeque<>(); // Images free for reuse
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) { // By save name
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			if (size() <= IN_MEMORY || eldest.getValue().pending)
+				return false;
+			if (eldest.getValue().image != null)
+				pool.push(eldest.getValue().image);
+			return true;
+		}
+	};
+
+	/**
+	 * The thumbnail of one save. Only used on the event dispatch thread.
+	 */
+	private static final class Entry {
+		BufferedImage image; // The thumbnail, null until ready
+		long modified = -1; // Modification time of the save last tried, -1 before the first check
+		long checked; // System.nanoTime() of the last check for a newer save
+		boolean pending; // Whether a worker is checking or rendering
+	}
+
+	/**
+	 * Creates a cache with its own daemon worker threads.
+	 */
+	ThumbnailCache() {
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		workers = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "thumbnails");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns an icon that paints the thumbnail of a saved game, showing a
+	 * placeholder until it is ready.
+	 *
+	 * @param name The name of the saved game.
+	 * @return The icon.
+	 */
+	Icon icon(String name) {
+		return new Icon() {
+			@Override
+			public void paintIcon(Component c, Graphics g, int x, int y) {
+				BufferedImage image = get(name, c);
+				if (image != null) {
+					g.drawImage(image, x, y, null);
+				} else {
+					g.setColor(new Color(205, 193, 180));
+					g.fillRect(x, y, SIDE, SIDE);
+				}
+			}
+
+			@Override
+			public int getIconWidth() {
+				return SIDE;
+			}
+
+			@Override
+			public int getIconHeight() {
+				return SIDE;
+			}
+		};
+	}
+
+	/**
+	 * Stops the worker threads and releases the images. Icons painted later
+	 * show the placeholder.
+	 */
+	void close() {
+		workers.shutdownNow();
+		entries.clear();
+		pool.clear();
+	}
+
+	/**
+	 * Returns the thumbnail of a save if it is in memory, and has a worker
+	 * check the save for a newer version once the last check is older than
+	 * {@link #REFRESH_NANOS}; the component is repainted when a new thumbnail
+	 * is ready. Must be called on the event dispatch thread.
+	 *
+	 * @param name      The name of the saved game.
+	 * @param component The component to repaint when the thumbnail is ready.
+	 * @return The thumbnail, or null while it is being prepared.
+	 */
+	private BufferedImage get(String name, Component component) {
+		Entry entry = entries.computeIfAbsent(name, key -> new Entry());
+		long now = System.nanoTime();
+		if (entry.pending || entry.modified != -1 && now - entry.checked < REFRESH_NANOS || workers.isShutdown())
+			return entry.image;
+
+		entry.pending = true;
+		entry.checked = now;
+		long shown = entry.modified;
+		BufferedImage target = pool.isEmpty() ? new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_RGB)
+				: pool.pop();
+		workers.execute(() -> {
+			File save = Game.getSaveFile(name);
+			long modified = save.lastModified();
+			boolean ready = modified != shown && prepare(name, save, target);
+			SwingUtilities.invokeLater(() -> {
+				entry.pending = false;
+				entry.modified = modified; // A failed version is only retried once the save changes
+				if (ready) {
+					if (entry.image != null)
+						pool.push(entry.image);
+					entry.image = target;
+					component.repaint();
+				} else {
+					pool.push(target);
+				}
+			});
+		});
+		return entry.image;
+	}
+
+	/**
+	 * Fills an image with the thumbnail of a save, from the disk cache if it
+	 * is newer than the save, otherwise by rendering the save and caching the
+	 * result. Runs on a worker thread.
+	 *
+	 * @param name   The name of the saved game.
+	 * @param save   The save file.
+	 * @param target The image to draw into.
+	 * @return True if the image holds the thumbnail.
+	 */
+	private static boolean prepare(String name, File save, BufferedImage target) {
+		File cached = new File(DIRECTORY, name + ".png");
+		Graphics2D g = target.createGraphics();
+		try {
+			if (cached.lastModified() >= save.lastModified()) {
+				BufferedImage image = ImageIO.read(cached);
+				if (image != null && image.getWidth() == SIDE && image.getHeight() == SIDE) {
+					g.drawImage(image, 0, 0, null);
+					return true;
+				}
+			}
+			render(Game.peekSave(name), g);
+			DIRECTORY.mkdirs();
+			File temporary = new File(DIRECTORY, name + ".png.tmp");
+			if (ImageIO.write(target, "png", temporary) && !temporary.renameTo(cached)) {
+				cached.delete();
+				temporary.renameTo(cached);
+			}
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error: Failed to prepare the thumbnail of " + name + ".");
+			return false;
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Draws a position scaled to the thumbnail size.
+	 *
+	 * @param position The position to draw.
+	 * @param g        The graphics of the thumbnail image.
+	 */
+	static void render(BoardSnapshot position, Graphics2D g) {
+		int size = position.size();
+		int gap = 3;
+		int tile = (SIDE - gap * (size + 1)) / size;
+		int offset = (SIDE - tile * size - gap * (size + 1)) / 2;
+		g.setColor(new Color(187, 173, 160));
+		g.fillRect(0, 0, SIDE, SIDE);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setFont(new Font("Arial", Font.BOLD, tile / 3));
+		FontMetrics metrics = g.getFontMetrics();
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				int x = offset + gap + col * (tile + gap);
+				int y = offset + gap + row * (tile + gap);
+				int value = position.getTileValue(row, col);
+				g.setColor(GamePanel.getTileColor(value));
+				g.fillRect(x, y, tile, tile);
+				if (value != 0) {
+					String text = Integer.toString(value);
+					g.setColor(value <= 4 ? new Color(119, 110, 101) : Color.WHITE);
+					g.drawString(text, x + (tile - metrics.stringWidth(text)) / 2,
+							y + (tile - metrics.getHeight()) / 2 + metrics.getAscent());
+				}
+			}
+		}
+	}
+}
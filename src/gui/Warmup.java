@@ -0,0 +1,105 @@
+package gui;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.swing.SwingUtilities;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.Game;
+import logic.Leaderboard;
+import logic.ai.OpeningBook;
+
+/**
+ * Loads what the windows need from disk in the background, so the first frame
+ * never waits for file I/O. The score file, the save catalog and the engine's
+ * static tables are prepared in parallel; windows show placeholders and fill
+ * them in through {@link #onHighScore(IntConsumer)} and
+ * {@link #onSavedGames(Consumer)}.
+ */
+final class Warmup {
+
+	private static final int WARM_MOVES = 20_000; // Snapshot moves per board size run while warming up
+
+	private static CompletableFuture<Integer> highScore; // Best score once the score file is read
+	private static CompletableFuture<List<String>> savedGames; // Save names once the catalog is read
+
+	private Warmup() {
+	}
+
+	/**
+	 * Starts loading in the background. Calling it again has no effect.
+	 */
+	static synchronized void start() {
+		if (highScore != null)
+			return;
+		ExecutorService loaders = Executors.newFixedThreadPool(3, task -> {
+			Thread thread = new Thread(task, "warmup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		highScore = CompletableFuture.supplyAsync(() -> {
+			Leaderboard.global().load();
+			return Leaderboard.global().best();
+		}, loaders);
+		savedGames = CompletableFuture.supplyAsync(() -> {
+			Game.savedGames();
+			return Game.savedGames;
+		}, loaders);
+		CompletableFuture.runAsync(Warmup::warmEngine, loaders);
+		loaders.shutdown();
+	}
+
+	/**
+	 * @return True once the score file has been read, after which
+	 *         {@link Game#getHighScore()} no longer blocks.
+	 */
+	static boolean highScoreLoaded() {
+		start();
+		return highScore.isDone();
+	}
+
+	/**
+	 * Passes the best score to the callback on the event dispatch thread once
+	 * it is known.
+	 *
+	 * @param callback Receives the best score.
+	 */
+	static void onHighScore(IntConsumer callback) {
+		start();
+		highScore.thenAccept(best -> SwingUtilities.invokeLater(() -> callback.accept(best)));
+	}
+
+	/**
+	 * Passes the saved game names to the callback on the event dispatch thread
+	 * once the catalog has been read.
+	 *
+	 * @param callback Receives the names of the saved games.
+	 */
+	static void onSavedGames(Consumer<List<String>> callback) {
+		start();
+		savedGames.thenAccept(names -> SwingUtilities.invokeLater(() -> callback.accept(names)));
+	}
+
+	/**
+	 * Initialises the board's hash and symmetry tables and runs the move code
+	 * a little and opens the opening book, so the first moves and hints are
+	 * not slowed by class loading or file I/O.
+	 */
+	private static void warmEngine() {
+		OpeningBook.configured();
+		for (int size = 4; size <= 5; size++) {
+			Board.canonicalKey(new int[size][size]);
+			BoardSnapshot position = BoardSnapshot.of(new int[size][size], 0).withSpawn(0, 2).withSpawn(1, 2);
+			for (int i = 0; i < WARM_MOVES; i++) {
+				position.withMove(Direction.fromOrdinal(i & 3)).legalMoves();
+			}
+		}
+	}
+}
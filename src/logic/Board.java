@@ -1,17 +1,28 @@
 package logic;
 
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents the game board for the 2048 game.
  * It manages the tiles, their movements, and the game's scoring logic.
  */
 public class Board {
+	/** The largest board size supported, limited by the Zobrist key tables. */
+	public static final int MAX_SIZE = 8;
+
+	private static final int SYMMETRIES = 8; // Rotations and reflections of a square
+	private static final long[][] ZOBRIST = zobristKeys(); // Random key per cell and tile exponent
+	private static final int[][][] SYMMETRY_CELLS = symmetryCells(); // Cell mapping per size and symmetry
+
 	public int size; // The size of the game board
     public int[][] tiles; // 2D array representing the tiles on the board
     boolean hasReached2048 = false; // Flag to check if 2048 is reached
     int score = 0; // Current score of the game
+    private final long[] hashes = new long[SYMMETRIES]; // Zobrist hash of the board under each symmetry
+    GameEventBus events; // Receives merges and spawns, null when the game has no bus
+    final SpawnRandom random; // Decides where tiles spawn and their values
+    TileSpawner spawner; // Chooses spawns instead of random, null for random spawns
 
     /**
      * Constructs a new Board with the specified size.
@@ -19,19 +30,82 @@ public class Board {
      * @param size The size of the game board, typically 4x4 or 5x5.
      */
 	public Board(int size) {
+		this(size, SpawnRandom.newSeed());
+	}
+
+	/**
+	 * Constructs a new Board with the specified size whose random tiles are
+	 * determined by a seed.
+	 *
+	 * @param size The size of the game board, typically 4x4 or 5x5.
+	 * @param seed The seed of the tile spawns.
+	 */
+	public Board(int size, long seed) {
+		if (size < 1 || size > MAX_SIZE)
+			throw new IllegalArgumentException("Board size must be between 1 and " + MAX_SIZE + ".");
 		this.size = size;
 		this.tiles = new int[size][size];
+		this.random = new SpawnRandom(seed);
 		addRandomTile();
 		addRandomTile();
 	}
 
+	/**
+	 * Constructs a Board with the given tiles and state, without adding any
+	 * random tiles. The array is used directly, not copied.
+	 *
+	 * @param tiles          The tile values, a square array.
+	 * @param score          The score of the board.
+	 * @param hasReached2048 Whether a 2048 tile has been reached.
+	 */
+	Board(int[][] tiles, int score, boolean hasReached2048) {
+		if (tiles.length < 1 || tiles.length > MAX_SIZE)
+			throw new IllegalArgumentException("Board size must be between 1 and " + MAX_SIZE + ".");
+		this.size = tiles.length;
+		this.tiles = tiles;
+		this.score = score;
+		this.hasReached2048 = hasReached2048;
+		this.random = new SpawnRandom(SpawnRandom.newSeed());
+		rehash();
+	}
+
+	/**
+	 * Sets a tile and updates the Zobrist hashes for the change.
+	 *
+	 * @param row   The row index of the tile.
+	 * @param col   The column index of the tile.
+	 * @param value The new tile value.
+	 */
+	private void setTile(int row, int col, int value) {
+		int old = tiles[row][col];
+		if (old == value)
+			return;
+		tiles[row][col] = value;
+		int cell = row * size + col;
+		int before = exponent(old);
+		int after = exponent(value);
+		int[][] symmetries = SYMMETRY_CELLS[size];
+		for (int s = 0; s < SYMMETRIES; s++) {
+			long[] keys = ZOBRIST[symmetries[s][cell]];
+			hashes[s] ^= keys[before] ^ keys[after];
+		}
+	}
+
 	/**
      * Adds a random tile (either 2 or 4) to an empty position on the board.
+     * When a spawner is attached, it chooses the position and value instead.
      */
 	private void addRandomTile() {
-		Random random = new Random();
 		int value;// Generate either 2 or 4
 		int emptyTileCount = countEmptyTiles();
+		if (spawner != null && emptyTileCount > 0) {
+			int spawn = spawner.spawn(snapshot(), random);
+			int cell = TileSpawner.cell(spawn);
+			if (cell >= size * size || tiles[cell / size][cell % size] != 0)
+				throw new IllegalStateException("Spawner chose the occupied cell " + cell + ".");
+			spawnTile(cell / size, cell % size, TileSpawner.value(spawn));
+			return;
+		}
 		if (emptyTileCount >= size * size - 1)
 			value = 2;
 		else
@@ -45,7 +119,7 @@ public class Board {
 				for (int j = 0; j < size; j++) {
 					if (tiles[i][j] == 0) {
 						if (count == randomIndex) {
-							tiles[i][j] = value;
+							spawnTile(i, j, value);
 							return;
 						}
 						count++;
@@ -55,6 +129,20 @@ public class Board {
 		}
 	}
 
+	/**
+	 * Places a spawned tile and reports it.
+	 *
+	 * @param row   The row index of the tile.
+	 * @param col   The column index of the tile.
+	 * @param value The tile value.
+	 */
+	private void spawnTile(int row, int col, int value) {
+		setTile(row, col, value);
+		GameMetrics.recordSpawn();
+		if (events != null)
+			events.publish(GameEvent.Type.TILE_SPAWNED, row * size + col, value, 0);
+	}
+
 	 /**
      * Counts the number of empty tiles on the board.
      *
@@ -86,8 +174,10 @@ public class Board {
 	/**
      * Moves the tiles on the board up and merges them if applicable.
      * Adds a new random tile if the board changes.
+     *
+     * @return True if the move changed the board, false otherwise.
      */
-	public void moveUp() {
+	public boolean moveUp() {
 		int[][] temp = new int[size][size];
 	    for (int i = 0; i < size; i++) {
 	        System.arraycopy(tiles[i], 0, temp[i], 0, tiles[i].length);
@@ -102,18 +192,22 @@ public class Board {
 			mergeTiles(column);
 
 			for (int i = 0; i < size; i++) {
-				tiles[i][j] = column[i];
+				setTile(i, j, column[i]);
 			}
 		}
-		if (!Arrays.deepEquals(tiles,temp))
+		boolean changed = !Arrays.deepEquals(tiles, temp);
+		if (changed)
 			addRandomTile();
+		return changed;
 	}
 
 	/**
      * Moves the tiles on the board down and merges them if applicable.
      * Adds a new random tile if the board changes.
+     *
+     * @return True if the move changed the board, false otherwise.
      */
-	public void moveDown() {
+	public boolean moveDown() {
 		int[][] temp = new int[size][size];
 	    for (int i = 0; i < size; i++) {
 	        System.arraycopy(tiles[i], 0, temp[i], 0, tiles[i].length);
@@ -128,19 +222,23 @@ public class Board {
 			mergeTiles(column);
 
 			for (int i = size - 1; i >= 0; i--) {
-				tiles[i][j] = column[size - 1 - i];
+				setTile(i, j, column[size - 1 - i]);
 			}
 		}
-		if (!Arrays.deepEquals(tiles,temp))
+		boolean changed = !Arrays.deepEquals(tiles, temp);
+		if (changed)
 			addRandomTile();
+		return changed;
 
 	}
 	
 	/**
      * Moves the tiles on the board to the left and merges them if applicable.
      * Adds a new random tile if the board changes.
+     *
+     * @return True if the move changed the board, false otherwise.
      */
-	public void moveLeft() {
+	public boolean moveLeft() {
 		int[][] temp = new int[size][size];
 	    for (int i = 0; i < size; i++) {
 	        System.arraycopy(tiles[i], 0, temp[i], 0, tiles[i].length);
@@ -156,18 +254,22 @@ public class Board {
 			mergeTiles(row);
 
 			for (int j = 0; j < size; j++) {
-				tiles[i][j] = row[j];
+				setTile(i, j, row[j]);
 			}
 		}
-		if (!Arrays.deepEquals(tiles,temp))
+		boolean changed = !Arrays.deepEquals(tiles, temp);
+		if (changed)
 			addRandomTile();
+		return changed;
 	}
 
 	/**
      * Moves the tiles on the board to the right and merges them if applicable.
      * Adds a new random tile if the board changes.
+     *
+     * @return True if the move changed the board, false otherwise.
      */
-	public void moveRight() {
+	public boolean moveRight() {
 		int[][] temp = new int[size][size];
 	    for (int i = 0; i < size; i++) {
 	        System.arraycopy(tiles[i], 0, temp[i], 0, tiles[i].length);
@@ -184,12 +286,103 @@ public class Board {
 			mergeTiles(row);
 
 			for (int j = size - 1; j >= 0; j--) {
-				tiles[i][j] = row[size - 1 - j];
+				setTile(i, j, row[size - 1 - j]);
 			}
 		}
-		if (!Arrays.deepEquals(tiles,temp))
+		boolean changed = !Arrays.deepEquals(tiles, temp);
+		if (changed)
 			addRandomTile();
+		return changed;
+
+	}
+
+	/**
+	 * Moves the tiles in the given direction, spawning a random tile if the
+	 * board changes.
+	 *
+	 * @param direction The direction to move in.
+	 * @return True if the move changed the board, false otherwise.
+	 */
+	public boolean move(Direction direction) {
+		switch (direction) {
+		case UP:
+			return moveUp();
+		case DOWN:
+			return moveDown();
+		case LEFT:
+			return moveLeft();
+		default:
+			return moveRight();
+		}
+	}
+
+	/**
+	 * Computes the result of a move without changing the board, spawning a
+	 * tile or recording metrics.
+	 *
+	 * @param direction The direction to move in.
+	 * @return The tiles after the move, the score gain and whether anything
+	 *         changed.
+	 */
+	public MovePreview previewMove(Direction direction) {
+		int[][] result = new int[size][size];
+		int[] line = new int[size];
+		int gained = 0;
+		boolean changed = false;
+		boolean vertical = direction == Direction.UP || direction == Direction.DOWN;
+		boolean reversed = direction == Direction.DOWN || direction == Direction.RIGHT;
+		for (int a = 0; a < size; a++) {
+			for (int b = 0; b < size; b++) {
+				int k = reversed ? size - 1 - b : b;
+				line[b] = vertical ? tiles[k][a] : tiles[a][k];
+			}
+			gained += mergeLine(line);
+			for (int b = 0; b < size; b++) {
+				int i = vertical ? (reversed ? size - 1 - b : b) : a;
+				int j = vertical ? a : (reversed ? size - 1 - b : b);
+				result[i][j] = line[b];
+				changed |= line[b] != tiles[i][j];
+			}
+		}
+		return new MovePreview(direction, result, gained, changed);
+	}
+
+	/**
+	 * Finds every move that would change the board in a single pass over
+	 * adjacent pairs of cells.
+	 *
+	 * @return A mask with {@link Direction#bit()} set for each legal move, 0
+	 *         if the game is stuck.
+	 */
+	public int legalMoves() {
+		int mask = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int value = tiles[i][j];
+				if (j + 1 < size)
+					mask |= pairMoves(value, tiles[i][j + 1], Direction.LEFT, Direction.RIGHT);
+				if (i + 1 < size)
+					mask |= pairMoves(value, tiles[i + 1][j], Direction.UP, Direction.DOWN);
+			}
+		}
+		return mask;
+	}
 
+	/**
+	 * Returns the moves made legal by two adjacent cells.
+	 *
+	 * @param first    The value of the cell nearer to the start of the line.
+	 * @param second   The value of the cell after it.
+	 * @param backward The direction towards the first cell.
+	 * @param forward  The direction towards the second cell.
+	 * @return The mask of legal moves.
+	 */
+	static int pairMoves(int first, int second, Direction backward, Direction forward) {
+		if (first == 0)
+			return second == 0 ? 0 : backward.bit();
+		if (second == 0)
+			return forward.bit();
+		return first == second ? backward.bit() | forward.bit() : 0;
 	}
 
 	/**
@@ -199,9 +392,34 @@ public class Board {
      * @param array An array of tile values representing a row or column.
      */
 	private void mergeTiles(int[] array) {
-		for (int i = 0; i < size; i++) {
+		score += mergeLine(array, this);
+	}
+
+	/**
+	 * Slides and merges a line of tiles towards index 0 by the rules of the 2048
+	 * game, without touching any board. Every tile merges at most once per move.
+	 *
+	 * @param line The tile values of a row or column, modified in place.
+	 * @return The score gained by the merges.
+	 */
+	public static int mergeLine(int[] line) {
+		return mergeLine(line, null);
+	}
+
+	/**
+	 * Slides and merges a line of tiles towards index 0, crediting merges to
+	 * the metrics and the 2048 flag of a board.
+	 *
+	 * @param array An array of tile values representing a row or column.
+	 * @param board The board the line belongs to, or null for none.
+	 * @return The score gained by the merges.
+	 */
+	private static int mergeLine(int[] array, Board board) {
+		int length = array.length;
+		int gained = 0;
+		for (int i = 0; i < length; i++) {
 			if (array[i] == 0) {
-				for (int j = i + 1; j < size; j++) {
+				for (int j = i + 1; j < length; j++) {
 					if (array[j] != 0) {
 						array[i] = array[j];
 						array[j] = 0;
@@ -210,14 +428,21 @@ public class Board {
 				}
 			}
 			if (array[i] != 0) {
-				for (int j = i + 1; j < size; j++) {
+				for (int j = i + 1; j < length; j++) {
 					if (array[j] != 0) {
 						if (array[i] == array[j]) {
 							array[i] *= 2;
-							score += array[i];
+							gained += array[i];
 							array[j] = 0;
-							if (array[i] == 2048) {
-								hasReached2048 = true;
+							if (board != null) {
+								GameMetrics.recordMerge(array[i]);
+								if (board.events != null)
+									board.events.publish(GameEvent.Type.TILES_MERGED, 0, array[i], 0);
+								if (array[i] == 2048) {
+									if (board.events != null && !board.hasReached2048)
+										board.events.publish(GameEvent.Type.REACHED_2048, 0, 0, board.score + gained);
+									board.hasReached2048 = true;
+								}
 							}
 							break;
 						} else if (array[j] != 0 && array[i] != array[j]) {
@@ -228,7 +453,7 @@ public class Board {
 				}
 			}
 		}
-
+		return gained;
 	}
 
 	 /**
@@ -241,13 +466,31 @@ public class Board {
 		return score;
 	}
 
+	/**
+	 * Lets a spawner choose where the tile after each move appears.
+	 *
+	 * @param spawner The spawner, or null for random spawns.
+	 */
+	public void setSpawner(TileSpawner spawner) {
+		this.spawner = spawner;
+	}
+
+	/**
+	 * Returns an immutable copy of the board for searching and branching.
+	 *
+	 * @return The snapshot of the current position.
+	 */
+	public BoardSnapshot snapshot() {
+		return BoardSnapshot.of(this);
+	}
+
 	/**
      * Resets the board to its initial state with two random tiles.
      */
 	public void resetBoard() {
 		for (int i = 0; i < size; i++) {
 			for (int j = 0; j < size; j++) {
-				tiles[i][j] = 0;
+				setTile(i, j, 0);
 			}
 		}
 
@@ -255,6 +498,204 @@ public class Board {
 		addRandomTile();
 	}
 
+	/**
+	 * Returns the Zobrist hash of the board. It is kept up to date by moves,
+	 * spawns and resets; code that writes {@link #tiles} directly must call
+	 * {@link #rehash()} afterwards.
+	 *
+	 * @return The 64-bit Zobrist hash of the tiles.
+	 */
+	public long zobristHash() {
+		return hashes[0];
+	}
+
+	/**
+	 * Returns a key shared by all boards that are rotations or reflections of
+	 * each other: the smallest Zobrist hash over the 8 symmetries of the board.
+	 * Like {@link #zobristHash()} it is maintained incrementally.
+	 *
+	 * @return The symmetry-canonical key of the tiles.
+	 */
+	public long canonicalKey() {
+		long key = hashes[0];
+		for (int s = 1; s < SYMMETRIES; s++) {
+			key = Math.min(key, hashes[s]);
+		}
+		return key;
+	}
+
+	/**
+	 * Recomputes the Zobrist hashes from the tiles, after {@link #tiles} was
+	 * modified directly.
+	 */
+	public void rehash() {
+		long[] computed = hashes(tiles);
+		System.arraycopy(computed, 0, hashes, 0, SYMMETRIES);
+	}
+
+	/**
+	 * Computes the symmetry-canonical key of a square array of tiles, as
+	 * {@link #canonicalKey()} would for a board holding them.
+	 *
+	 * @param tiles The tile values.
+	 * @return The symmetry-canonical key.
+	 */
+	public static long canonicalKey(int[][] tiles) {
+		long key = Long.MAX_VALUE;
+		for (long hash : hashes(tiles)) {
+			key = Math.min(key, hash);
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the symmetry that maps a square array of tiles onto the
+	 * orientation whose hash is its {@link #canonicalKey(int[][]) canonical
+	 * key}. Symmetries 0-3 rotate clockwise by that many quarter turns,
+	 * symmetries 4-7 first reflect the rows top to bottom.
+	 *
+	 * @param tiles The tile values.
+	 * @return The symmetry, from 0 to 7.
+	 */
+	public static int canonicalSymmetry(int[][] tiles) {
+		long[] hashes = hashes(tiles);
+		int best = 0;
+		for (int s = 1; s < SYMMETRIES; s++) {
+			if (hashes[s] < hashes[best])
+				best = s;
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the move that corresponds to a move on a board once the board is
+	 * transformed by a symmetry, as numbered by {@link #canonicalSymmetry}.
+	 *
+	 * @param direction The move on the untransformed board.
+	 * @param symmetry  The symmetry, from 0 to 7.
+	 * @return The move on the transformed board.
+	 */
+	public static Direction transform(Direction direction, int symmetry) {
+		int dr = direction == Direction.UP ? -1 : direction == Direction.DOWN ? 1 : 0;
+		int dc = direction == Direction.LEFT ? -1 : direction == Direction.RIGHT ? 1 : 0;
+		if (symmetry >= 4)
+			dr = -dr;
+		for (int turn = 0; turn < symmetry % 4; turn++) { // (r, c) turns into (c, n - 1 - r)
+			int t = dr;
+			dr = dc;
+			dc = -t;
+		}
+		return dr < 0 ? Direction.UP : dr > 0 ? Direction.DOWN : dc < 0 ? Direction.LEFT : Direction.RIGHT;
+	}
+
+	/**
+	 * Computes the Zobrist hashes of a square array of tiles under each symmetry.
+	 *
+	 * @param tiles The tile values.
+	 * @return The hashes, index 0 being the untransformed tiles.
+	 */
+	private static long[] hashes(int[][] tiles) {
+		int size = tiles.length;
+		int[][] symmetries = SYMMETRY_CELLS[size];
+		long[] hashes = new long[SYMMETRIES];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int exponent = exponent(tiles[i][j]);
+				for (int s = 0; s < SYMMETRIES; s++) {
+					hashes[s] ^= ZOBRIST[symmetries[s][i * size + j]][exponent];
+				}
+			}
+		}
+		return hashes;
+	}
+
+	/**
+	 * Returns the Zobrist key of a tile, for hashing positions held outside a
+	 * board the way {@link #zobristHash()} does.
+	 *
+	 * @param size     The board size.
+	 * @param cell     The cell, numbered row by row.
+	 * @param exponent The tile exponent, 0 for an empty cell.
+	 * @return The key.
+	 */
+	static long zobristKey(int size, int cell, int exponent) {
+		return ZOBRIST[SYMMETRY_CELLS[size][0][cell]][exponent];
+	}
+
+	/**
+	 * @param value A tile value.
+	 * @return The exponent of the value, 0 for an empty tile.
+	 */
+	private static int exponent(int value) {
+		return value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+	}
+
+	/**
+	 * Draws the Zobrist keys from a fixed seed, so hashes are stable across runs
+	 * and can be stored. Empty cells have the key 0.
+	 *
+	 * @return The keys indexed by cell and tile exponent.
+	 */
+	private static long[][] zobristKeys() {
+		SplittableRandom random = new SplittableRandom(2048);
+		long[][] keys = new long[MAX_SIZE * MAX_SIZE][32];
+		for (long[] cell : keys) {
+			for (int e = 1; e < cell.length; e++) {
+				cell[e] = random.nextLong();
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Tabulates, for every board size, where each cell lands under the 4
+	 * rotations and 4 reflections of the board.
+	 *
+	 * @return The target cells indexed by size, symmetry and source cell.
+	 */
+	private static int[][][] symmetryCells() {
+		int[][][] cells = new int[MAX_SIZE + 1][SYMMETRIES][];
+		for (int n = 1; n <= MAX_SIZE; n++) {
+			for (int s = 0; s < SYMMETRIES; s++) {
+				cells[n][s] = new int[n * n];
+				for (int i = 0; i < n; i++) {
+					for (int j = 0; j < n; j++) {
+						int r = s < 4 ? i : n - 1 - i; // Symmetries 4-7 reflect first
+						int c = j;
+						for (int turn = 0; turn < s % 4; turn++) { // Then rotate clockwise
+							int t = r;
+							r = c;
+							c = n - 1 - t;
+						}
+						cells[n][s][i * n + j] = r * n + c;
+					}
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Two boards are equal if they have the same size and tiles. Equality and
+	 * the hash code read the tiles rather than the cached Zobrist hashes, so
+	 * they stay correct when {@link #tiles} is written directly; caches that
+	 * want a constant-time key use {@link #zobristHash()} instead.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof Board))
+			return false;
+		Board board = (Board) other;
+		return size == board.size && Arrays.deepEquals(tiles, board.tiles);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.deepHashCode(tiles);
+	}
+
 	 /**
      * Checks if there is any possible move left on the board.
      *
@@ -0,0 +1,311 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * An immutable position of the game: tile exponents, score and the 2048 flag.
+ * Unlike {@link Board}, creating and branching snapshots never spawns random
+ * tiles. {@link #withMove(Direction)} and {@link #withSpawn(int, int)} return
+ * new snapshots, so searchers can branch from a position by copying a few
+ * dozen bytes.
+ * <p>
+ * Cells are numbered row by row: cell {@code row * size + col}.
+ */
+public final class BoardSnapshot {
+
+	private final int size; // Board size
+	private final byte[] exponents; // Tile exponent per cell, 0 for empty; never modified
+	private final int score; // Score of the position
+	private final boolean hasReached2048; // Whether a 2048 tile has been created
+
+	private BoardSnapshot(int size, byte[] exponents, int score, boolean hasReached2048) {
+		this.size = size;
+		this.exponents = exponents;
+		this.score = score;
+		this.hasReached2048 = hasReached2048;
+	}
+
+	/**
+	 * Creates a snapshot of the given tiles.
+	 *
+	 * @param tiles The tile values, a square array.
+	 * @param score The score of the position.
+	 * @return The snapshot.
+	 */
+	public static BoardSnapshot of(int[][] tiles, int score) {
+		int size = tiles.length;
+		byte[] exponents = new byte[size * size];
+		boolean reached = false;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int value = tiles[i][j];
+				exponents[i * size + j] = (byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+				reached |= value >= 2048;
+			}
+		}
+		return new BoardSnapshot(size, exponents, score, reached);
+	}
+
+	/**
+	 * Creates a snapshot of a board.
+	 *
+	 * @param board The board to copy.
+	 * @return The snapshot.
+	 */
+	static BoardSnapshot of(Board board) {
+		BoardSnapshot snapshot = of(board.tiles, board.score);
+		return snapshot.hasReached2048 == board.hasReached2048 ? snapshot
+				: new BoardSnapshot(snapshot.size, snapshot.exponents, snapshot.score, board.hasReached2048);
+	}
+
+	/**
+	 * @return The board size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The score of the position.
+	 */
+	public int score() {
+		return score;
+	}
+
+	/**
+	 * @return Whether a 2048 tile has been created.
+	 */
+	public boolean hasReached2048() {
+		return hasReached2048;
+	}
+
+	/**
+	 * Returns the value of a tile.
+	 *
+	 * @param row The row index of the tile.
+	 * @param col The column index of the tile.
+	 * @return The tile value, 0 for an empty cell.
+	 */
+	public int getTileValue(int row, int col) {
+		int exponent = exponents[row * size + col];
+		return exponent == 0 ? 0 : 1 << exponent;
+	}
+
+	/**
+	 * Returns the exponent of the tile in a cell.
+	 *
+	 * @param cell The cell index.
+	 * @return The exponent, 0 for an empty cell.
+	 */
+	public int exponent(int cell) {
+		return exponents[cell];
+	}
+
+	/**
+	 * Packs a row with four bits per tile exponent, the first cell in the
+	 * lowest bits. Exponents above 15 are stored as 15.
+	 *
+	 * @param row The row index.
+	 * @return The packed row.
+	 */
+	public int packedRow(int row) {
+		int packed = 0;
+		for (int k = size - 1; k >= 0; k--) {
+			packed = packed << 4 | Math.min(exponents[row * size + k], 15);
+		}
+		return packed;
+	}
+
+	/**
+	 * Packs a column like {@link #packedRow(int)}, the top cell in the lowest
+	 * bits.
+	 *
+	 * @param col The column index.
+	 * @return The packed column.
+	 */
+	public int packedColumn(int col) {
+		int packed = 0;
+		for (int k = size - 1; k >= 0; k--) {
+			packed = packed << 4 | Math.min(exponents[k * size + col], 15);
+		}
+		return packed;
+	}
+
+	/**
+	 * @return The number of empty cells.
+	 */
+	public int emptyCells() {
+		int count = 0;
+		for (byte exponent : exponents) {
+			if (exponent == 0)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return The largest tile value on the board.
+	 */
+	public int maxTile() {
+		int max = 0;
+		for (byte exponent : exponents) {
+			max = Math.max(max, exponent);
+		}
+		return max == 0 ? 0 : 1 << max;
+	}
+
+	/**
+	 * @return A copy of the tile values.
+	 */
+	public int[][] tiles() {
+		int[][] tiles = new int[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				tiles[i][j] = getTileValue(i, j);
+			}
+		}
+		return tiles;
+	}
+
+	/**
+	 * Returns the position after a move, without spawning a tile. Tiles slide
+	 * and merge exactly as in {@link Board#mergeLine(int[])}.
+	 *
+	 * @param direction The direction to move in.
+	 * @return The new position, or this snapshot if the move changes nothing.
+	 */
+	public BoardSnapshot withMove(Direction direction) {
+		byte[] moved = new byte[exponents.length];
+		int gained = 0;
+		boolean reached = hasReached2048;
+		for (int line = 0; line < size; line++) {
+			int start = start(direction, line);
+			int step = step(direction);
+			int target = start; // Next cell to fill
+			int last = 0; // Exponent of the tile before target, 0 if it cannot merge
+			for (int p = 0, cell = start; p < size; p++, cell += step) {
+				int exponent = exponents[cell];
+				if (exponent == 0)
+					continue;
+				if (exponent == last) {
+					moved[target - step] = (byte) (exponent + 1);
+					gained += 2 << exponent;
+					reached |= exponent + 1 == 11;
+					last = 0;
+				} else {
+					moved[target] = (byte) exponent;
+					target += step;
+					last = exponent;
+				}
+			}
+		}
+		if (Arrays.equals(moved, exponents))
+			return this;
+		return new BoardSnapshot(size, moved, score + gained, reached);
+	}
+
+	/**
+	 * Finds every move that would change the position in a single pass over
+	 * adjacent pairs of cells.
+	 *
+	 * @return A mask with {@link Direction#bit()} set for each legal move.
+	 */
+	public int legalMoves() {
+		int mask = 0;
+		for (int cell = 0; cell < exponents.length; cell++) {
+			if ((cell + 1) % size != 0)
+				mask |= Board.pairMoves(exponents[cell], exponents[cell + 1], Direction.LEFT, Direction.RIGHT);
+			if (cell + size < exponents.length)
+				mask |= Board.pairMoves(exponents[cell], exponents[cell + size], Direction.UP, Direction.DOWN);
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the position with a tile added.
+	 *
+	 * @param cell  The index of an empty cell.
+	 * @param value The tile value, usually 2 or 4.
+	 * @return The new position.
+	 * @throws IllegalArgumentException If the cell is not empty.
+	 */
+	public BoardSnapshot withSpawn(int cell, int value) {
+		if (exponents[cell] != 0)
+			throw new IllegalArgumentException("Cell " + cell + " is not empty.");
+		byte[] spawned = exponents.clone();
+		spawned[cell] = (byte) Integer.numberOfTrailingZeros(value);
+		return new BoardSnapshot(size, spawned, score, hasReached2048);
+	}
+
+	/**
+	 * Creates a mutable board holding this position, without spawning tiles.
+	 *
+	 * @return The board.
+	 */
+	public Board toBoard() {
+		return new Board(tiles(), score, hasReached2048);
+	}
+
+	/**
+	 * Returns the first cell of a line in the order tiles slide towards.
+	 */
+	private int start(Direction direction, int line) {
+		switch (direction) {
+		case UP:
+			return line;
+		case DOWN:
+			return (size - 1) * size + line;
+		case LEFT:
+			return line * size;
+		default:
+			return line * size + size - 1;
+		}
+	}
+
+	/**
+	 * Returns the cell index step moving away from the first cell of a line.
+	 */
+	private int step(Direction direction) {
+		switch (direction) {
+		case UP:
+			return size;
+		case DOWN:
+			return -size;
+		case LEFT:
+			return 1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the Zobrist hash of the tiles, equal to {@link Board#zobristHash()}
+	 * of a board holding them. Unlike {@link #equals(Object)} it ignores the
+	 * score and the 2048 flag.
+	 *
+	 * @return The 64-bit Zobrist hash of the tiles.
+	 */
+	public long zobristHash() {
+		long hash = 0;
+		for (int cell = 0; cell < exponents.length; cell++) {
+			hash ^= Board.zobristKey(size, cell, exponents[cell]);
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof BoardSnapshot))
+			return false;
+		BoardSnapshot snapshot = (BoardSnapshot) other;
+		return score == snapshot.score && hasReached2048 == snapshot.hasReached2048
+				&& Arrays.equals(exponents, snapshot.exponents);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(exponents) * 31 + score;
+	}
+}
@@ -0,0 +1,27 @@
+package logic;
+
+/**
+ * The four directions tiles can be moved in.
+ */
+public enum Direction {
+	UP, DOWN, LEFT, RIGHT;
+
+	private static final Direction[] VALUES = values(); // Cached to avoid copying in fromOrdinal
+
+	/**
+	 * @return The bit representing this direction in a move mask.
+	 */
+	public int bit() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Returns the direction with the given ordinal.
+	 *
+	 * @param ordinal The ordinal, 0 to 3.
+	 * @return The direction.
+	 */
+	public static Direction fromOrdinal(int ordinal) {
+		return VALUES[ordinal];
+	}
+}
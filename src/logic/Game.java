@@ -4,22 +4,51 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.List;
 import java.util.Scanner;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+import logic.jfr.LoadEvent;
+import logic.jfr.MoveBatchEvent;
+import logic.jfr.SaveEvent;
+import logic.jfr.ScoreStoreEvent;
 
 /**
  * Represents the main game logic for the 2048 game.
  * This class manages the game state, including the game board, score, and high scores.
  */
 public class Game {
+	/** The largest number of bytes {@link #writeCompact(ByteBuffer)} writes, for the largest board. */
+	public static final int COMPACT_MAX_BYTES = 1 + Board.MAX_SIZE * Board.MAX_SIZE + 4 + 1 + 8;
+
+	/** Identifies binary saves, "2048SAVE" in ASCII. */
+	static final long SAVE_MAGIC = 0x3230343853415645L;
+	/** The binary save format version. */
+	static final int SAVE_VERSION = 1;
+
+	private static final int EVENT_CAPACITY = 4096; // Events kept on the bus for slow subscribers
+	private static final int SAVE_FIXED_BYTES = 8 + 4 + 1 + 4 + 1 + 8 + 4; // Save bytes besides the tiles
+
 	private Board board; // The game board
     int score; // Current score of the game
-    static int highScore = 0; // Static variable to hold the highest score across games
+    static volatile int highScore = 0; // Static variable to hold the highest score across games
     private int loadedSize; // Size of the board when a game is loaded
-    static ArrayList<Integer> scores = new ArrayList<>(); // List of all scores
-    static public ArrayList<String> savedGames = new ArrayList<>(); // List of saved games
+    static final ArrayList<Integer> scores = new ArrayList<>(); // List of all scores, guarded by SCORES_LOCK
+    static public final List<String> savedGames = new CopyOnWriteArrayList<>(); // List of saved games
+    private static final Object SCORES_LOCK = new Object(); // Serializes access to scores
+    private static final Object SAVES_LOCK = new Object(); // Serializes updates of savedGames.txt
+    private MoveBatchEvent moveBatch; // Open Flight Recorder batch, null while none is recorded
+    private GameEventBus events; // Event stream of the game, null until someone subscribes
+    private TileSpawner spawner; // Chooses spawns instead of random, null for random spawns
 
 	 /**
      * Constructs a new Game with a fresh board of a specified size.
@@ -31,6 +60,18 @@ public class Game {
 		this.score = 0;
 	}
 
+	/**
+	 * Constructs a new Game whose random tiles are determined by a seed, so
+	 * the same seed and moves always produce the same game.
+	 *
+	 * @param size The size of the board.
+	 * @param seed The seed of the tile spawns.
+	 */
+	public Game(int size, long seed) {
+		this.board = new Board(size, seed);
+		this.score = 0;
+	}
+
 	/**
      * Constructs a Game by loading its state from a saved file.
      *
@@ -40,6 +81,17 @@ public class Game {
 		loadGame(filename);
 	}
 
+	/**
+	 * Constructs a Game around an existing board.
+	 *
+	 * @param board The board to play on.
+	 */
+	private Game(Board board) {
+		this.board = board;
+		this.score = board.score;
+		this.loadedSize = board.size;
+	}
+
 	/**
 	 * Returns the size of the current game board.
 	 *
@@ -52,39 +104,131 @@ public class Game {
 	/**
 	 * Executes a move action by moving tiles upwards.
 	 * Updates the score after the move.
+	 *
+	 * @return True if the move changed the board, false otherwise.
 	 */
-	public void moveUp() {
-		board.moveUp();
+	public boolean moveUp() {
+		int before = score;
+		boolean changed = board.moveUp();
 		score = board.score;
+		recordMove(Direction.UP, changed, before);
+		return changed;
 	}
 
 	/**
 	 * Executes a move action by moving tiles down.
 	 * Updates the score after the move.
+	 *
+	 * @return True if the move changed the board, false otherwise.
 	 */
-	public void moveDown() {
-		board.moveDown();
+	public boolean moveDown() {
+		int before = score;
+		boolean changed = board.moveDown();
 		score = board.score;
+		recordMove(Direction.DOWN, changed, before);
+		return changed;
 	}
 
 	/**
 	 * Executes a move action by moving tiles left.
 	 * Updates the score after the move.
+	 *
+	 * @return True if the move changed the board, false otherwise.
 	 */
-	public void moveLeft() {
-		board.moveLeft();
+	public boolean moveLeft() {
+		int before = score;
+		boolean changed = board.moveLeft();
 		score = board.score;
+		recordMove(Direction.LEFT, changed, before);
+		return changed;
 	}
 
 	/**
 	 * Executes a move action by moving tiles right.
 	 * Updates the score after the move.
+	 *
+	 * @return True if the move changed the board, false otherwise.
 	 */
-	public void moveRight() {
-		board.moveRight();
+	public boolean moveRight() {
+		int before = score;
+		boolean changed = board.moveRight();
 		score = board.score;
+		recordMove(Direction.RIGHT, changed, before);
+		return changed;
 	}
 	
+	/**
+	 * Executes a move in the given direction.
+	 *
+	 * @param direction The direction to move in.
+	 * @return True if the move changed the board, false otherwise.
+	 */
+	public boolean move(Direction direction) {
+		int before = score;
+		boolean changed = board.move(direction);
+		score = board.score;
+		recordMove(direction, changed, before);
+		return changed;
+	}
+
+	/**
+	 * Computes the result of a move without applying it.
+	 *
+	 * @param direction The direction to preview.
+	 * @return The tiles after the move, before a tile is spawned, and the score
+	 *         gain.
+	 */
+	public MovePreview previewMove(Direction direction) {
+		return board.previewMove(direction);
+	}
+
+	/**
+	 * Returns the moves that would change the board.
+	 *
+	 * @return A mask with {@link Direction#bit()} set for each legal move.
+	 */
+	public int legalMoves() {
+		return board.legalMoves();
+	}
+
+	/**
+	 * Records a completed move in the metrics and on the event bus and, while a Flight Recorder
+	 * recording has it enabled, in the current move batch event.
+	 *
+	 * @param direction   The direction of the move.
+	 * @param changed     Whether the move changed the board.
+	 * @param scoreBefore The score before the move.
+	 */
+	private void recordMove(Direction direction, boolean changed, int scoreBefore) {
+		GameMetrics.recordMove(changed);
+		if (events != null)
+			events.publish(GameEvent.Type.MOVE_APPLIED, direction.ordinal(), changed ? 1 : 0, score);
+		if (moveBatch == null) {
+			MoveBatchEvent event = new MoveBatchEvent();
+			if (!event.isEnabled())
+				return;
+			event.boardSize = board.size;
+			event.begin();
+			moveBatch = event;
+		}
+		moveBatch.moves++;
+		if (!changed)
+			moveBatch.noOpMoves++;
+		moveBatch.scoreDelta += score - scoreBefore;
+		if (moveBatch.moves >= MoveBatchEvent.BATCH_SIZE)
+			flushMoveBatch();
+	}
+
+	/**
+	 * Commits the open move batch event, if any.
+	 */
+	private void flushMoveBatch() {
+		if (moveBatch != null) {
+			moveBatch.commit();
+			moveBatch = null;
+		}
+	}
+
 	/**
 	 * Checks if the player has reached the 2048 tile.
 	 *
@@ -109,6 +253,10 @@ public class Game {
 
 		if (!answer || !board.canMakeMove()) {
 			board.hasReached2048 = false;
+			GameMetrics.recordGameFinished();
+			flushMoveBatch();
+			if (events != null)
+				events.publish(GameEvent.Type.GAME_OVER, 0, 0, score);
 			return true;
 		}
 		return false;
@@ -123,14 +271,15 @@ public class Game {
 		return score;
 	}
 
+	/**
+	 * Submits a finished game's score to the global {@link Leaderboard}, which
+	 * appends it to the saved scores file in the background. Safe to call from
+	 * several games at once.
+	 *
+	 * @param score The score to record.
+	 */
 	public static void saveScore(int score) {
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter("Score.txt", true));
-			writer.write(score + "\n");
-			writer.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		Leaderboard.global().submit(score);
 	}
 
 	/**
@@ -139,30 +288,40 @@ public class Game {
      * @return The highest score recorded.
      */
 	public static int getHighScore() {
-		getAllScores();
-		if (scores.size() > 0) {
-			scores.sort(Comparator.reverseOrder());
-			highScore = scores.get(0);
-		}
-
+		highScore = Leaderboard.global().best();
 		return highScore;
 	}
 
 	/**
-     * Loads all saved scores from the file into the scores list.
+     * Loads all saved scores from the file into the scores list, replacing its
+     * previous contents.
      * This method is used to populate the list of scores for high score calculation.
      */
 	public static void getAllScores() {
-		try {
-			File file = new File("Score.txt");
-			Scanner sc = new Scanner(file);
-
-			while (sc.hasNextLine()) {
-				scores.add(Integer.parseInt(sc.nextLine()));
+		ScoreStoreEvent event = new ScoreStoreEvent();
+		event.begin();
+		long start = System.nanoTime();
+		synchronized (SCORES_LOCK) {
+			try {
+				File file = new File("Score.txt");
+				Scanner sc = new Scanner(file);
+
+				scores.clear();
+				while (sc.hasNextLine()) {
+					String line = sc.nextLine().trim();
+					if (!line.isEmpty())
+						scores.add(Integer.parseInt(line));
+				}
+				sc.close();
+				GameMetrics.recordScoreFile(System.nanoTime() - start, 0);
+				if (event.shouldCommit()) {
+					event.operation = "read";
+					event.score = scores.isEmpty() ? 0 : scores.get(scores.size() - 1);
+					event.commit();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-			sc.close();
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 
 	}
@@ -188,80 +347,402 @@ public class Game {
 
 	/**
      * Saves the current state of the game to a file.
-     * This includes the board size, tile values, and current score.
+     * This includes the board size, tile values, current score and the state of
+     * the spawn random stream, in the binary format of {@link #writeSave(Path, Board)}.
      *
      * @param filename The name of the file to save the game to.
+     * @return True if the game was saved, false if writing failed.
      */
-	public void saveGame(String filename) {
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter("savedGames/"+filename + ".txt"))) {
-
-			writer.write(board.size + "\n");
-
-			for (int i = 0; i < board.size; i++) {
-				for (int j = 0; j < board.size; j++) {
-					writer.write(board.tiles[i][j] + " ");
+	public boolean saveGame(String filename) {
+		SaveEvent event = new SaveEvent();
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			long bytes = writeSave(saveFile(filename), board);
+			Files.deleteIfExists(legacySaveFile(filename).toPath());
+			synchronized (SAVES_LOCK) {
+				if (!savedGames.contains(filename)) {
+					BufferedWriter writer2 = new BufferedWriter(new FileWriter("savedGames.txt", true));
+					writer2.write(filename + "\n");
+					writer2.close();
+					savedGames.add(filename);
+					bytes += filename.length() + 1;
 				}
-				writer.write("\n");
 			}
-
-			writer.write(score + "\n");
-
-			System.out.println("Game saved successfully.");
-			writer.close();
-			BufferedWriter writer2 = new BufferedWriter(new FileWriter("savedGames.txt", true));
-			if (!savedGames.contains(filename))
-				writer2.write(filename + "\n");
-			writer2.close();
-
+			GameMetrics.recordSave(System.nanoTime() - start, bytes);
+			event.bytes = bytes;
+			event.succeeded = true;
 		} catch (IOException e) {
-			e.printStackTrace();
+			System.err.println("Error: Failed to save the game " + filename + ": " + e.getMessage());
+			return false;
+		} finally {
+			if (event.shouldCommit()) {
+				event.filename = filename;
+				event.boardSize = board.size;
+				event.score = score;
+				event.commit();
+			}
 		}
+		return true;
 	}
 
 	/**
 	 * Loads the list of saved games from a file.
-	 * Populates the static 'savedGames' list with the names of saved game files.
+	 * Populates the static 'savedGames' list with the names of saved game files,
+	 * replacing its previous contents.
 	 */
 	static public void savedGames() {
-		try (Scanner sc = new Scanner(new File("savedGames.txt"))) {
-
-			while (sc.hasNextLine()) {
-				savedGames.add(sc.nextLine());
-			}
-			sc.close();
+		synchronized (SAVES_LOCK) {
+			try (Scanner sc = new Scanner(new File("savedGames.txt"))) {
+				ArrayList<String> names = new ArrayList<>();
+				while (sc.hasNextLine()) {
+					String name = sc.nextLine();
+					if (!name.isEmpty() && !names.contains(name))
+						names.add(name);
+				}
+				sc.close();
+				savedGames.retainAll(names);
+				for (String name : names) {
+					if (!savedGames.contains(name))
+						savedGames.add(name);
+				}
 
-		} catch (IOException e) {
-			System.out.println("Error: Failed to read savedGames file.");
+			} catch (IOException e) {
+				System.out.println("Error: Failed to read savedGames file.");
 
+			}
 		}
 	}
 
 	 /**
      * Loads a game from a specified file.
      * The method sets up the board and current score based on the file contents.
+     * A save that fails its checks leaves the game unchanged. Text saves of
+     * earlier versions are converted to the binary format on first load.
      *
      * @param filename The name of the file to load the game from.
      */
 	public void loadGame(String filename) {
-		try (Scanner scanner = new Scanner(new File("savedGames/"+filename + ".txt"))) {
+		LoadEvent event = new LoadEvent();
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			Board loaded = readSave(filename);
+			loaded.events = events;
+			loaded.setSpawner(spawner);
+			this.board = loaded;
+			loadedSize = loaded.size;
+			score = loaded.score;
+
+			GameMetrics.recordLoad(System.nanoTime() - start);
+			event.succeeded = true;
+		} catch (IOException e) {
+			System.err.println("Error: Failed to load the game " + filename + ": " + e.getMessage());
+		} finally {
+			if (event.shouldCommit()) {
+				event.filename = filename;
+				event.boardSize = loadedSize;
+				event.score = score;
+				event.bytes = getSaveFile(filename).length();
+				event.commit();
+			}
+		}
+	}
 
-			loadedSize = scanner.nextInt();
-			this.board = new Board(loadedSize);
+	/**
+	 * Returns the Zobrist hash of the current board.
+	 *
+	 * @return The hash of the tiles.
+	 */
+	public long getZobristHash() {
+		return board.zobristHash();
+	}
 
-			for (int i = 0; i < loadedSize; i++) {
-				for (int j = 0; j < loadedSize; j++) {
-					board.tiles[i][j] = scanner.nextInt();
-				}
+	/**
+	 * Returns a key shared by the current board and all its rotations and
+	 * reflections, for caches that treat symmetric positions as one.
+	 *
+	 * @return The symmetry-canonical key of the tiles.
+	 */
+	public long getCanonicalKey() {
+		return board.canonicalKey();
+	}
+
+	/**
+	 * Writes the state of the game in a compact binary form: the board size,
+	 * one byte per tile holding the tile's exponent, the score, the 2048 flag
+	 * and the state of the spawn stream, so the restored game spawns the same
+	 * tiles. At most {@link #COMPACT_MAX_BYTES} bytes are written.
+	 *
+	 * @param out The buffer to write to.
+	 */
+	public void writeCompact(ByteBuffer out) {
+		out.put((byte) board.size);
+		for (int i = 0; i < board.size; i++) {
+			for (int j = 0; j < board.size; j++) {
+				int value = board.tiles[i][j];
+				out.put((byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value)));
 			}
+		}
+		out.putInt(score);
+		out.put((byte) (board.hasReached2048 ? 1 : 0));
+		out.putLong(board.random.getState());
+	}
 
-			score = scanner.nextInt();
-			board.score = score;
+	/**
+	 * Reads a game written by {@link #writeCompact(ByteBuffer)}.
+	 *
+	 * @param in The buffer to read from.
+	 * @return The restored game.
+	 */
+	public static Game readCompact(ByteBuffer in) {
+		int size = in.get();
+		int[][] tiles = new int[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int exponent = in.get();
+				tiles[i][j] = exponent == 0 ? 0 : 1 << exponent;
+			}
+		}
+		int score = in.getInt();
+		boolean hasReached2048 = in.get() != 0;
+		Game game = new Game(new Board(tiles, score, hasReached2048));
+		game.board.random.setState(in.getLong());
+		return game;
+	}
+
+	/**
+	 * Returns the bus this game publishes its events to, creating it on first
+	 * use. Games without subscribers publish nothing. Events are published by
+	 * the thread playing the game; subscribers may read them from any thread.
+	 *
+	 * @return The event bus of the game.
+	 */
+	public GameEventBus events() {
+		if (events == null) {
+			events = new GameEventBus(EVENT_CAPACITY);
+			board.events = events;
+		}
+		return events;
+	}
+
+	/**
+	 * Lets a spawner choose where the tile after each move appears, for
+	 * example an adversary. The spawner stays attached when a game is loaded.
+	 *
+	 * @param spawner The spawner, or null for random spawns.
+	 */
+	public void setSpawner(TileSpawner spawner) {
+		this.spawner = spawner;
+		board.setSpawner(spawner);
+	}
+
+	/**
+	 * Returns the state of the random stream deciding the next spawns.
+	 *
+	 * @return The state, which {@link #setRandomState(long)} restores.
+	 */
+	public long getRandomState() {
+		return board.random.getState();
+	}
+
+	/**
+	 * Restores the random stream deciding the next spawns.
+	 *
+	 * @param state A state returned by {@link #getRandomState()}.
+	 */
+	public void setRandomState(long state) {
+		board.random.setState(state);
+	}
+
+	/**
+	 * Returns an immutable copy of the current position.
+	 *
+	 * @return The snapshot of the board.
+	 */
+	public BoardSnapshot snapshot() {
+		return board.snapshot();
+	}
+
+	/**
+	 * Creates a game continuing from a snapshot. No tiles are spawned.
+	 *
+	 * @param snapshot The position to start from.
+	 * @return The new game.
+	 */
+	public static Game fromSnapshot(BoardSnapshot snapshot) {
+		return new Game(snapshot.toBoard());
+	}
+
+	/**
+	 * Returns the file a game is saved to: the binary save, or a text save of
+	 * an earlier version that has not been converted yet.
+	 *
+	 * @param filename The name of the saved game.
+	 * @return The save file.
+	 */
+	public static File getSaveFile(String filename) {
+		File legacy = legacySaveFile(filename);
+		return legacy.exists() && !saveFile(filename).exists() ? legacy : saveFile(filename);
+	}
+
+	/**
+	 * Reads the position stored in a saved game without creating a game or
+	 * recording a load.
+	 *
+	 * @param filename The name of the saved game.
+	 * @return The saved position.
+	 * @throws IOException If the save cannot be read or is malformed.
+	 */
+	public static BoardSnapshot peekSave(String filename) throws IOException {
+		return readSave(filename).snapshot();
+	}
+
+	/**
+	 * Returns the binary save file of a game.
+	 */
+	private static File saveFile(String filename) {
+		return new File("savedGames/" + filename + ".sav");
+	}
+
+	/**
+	 * Returns the text save file written by earlier versions.
+	 */
+	private static File legacySaveFile(String filename) {
+		return new File("savedGames/" + filename + ".txt");
+	}
+
+	/**
+	 * Writes a board as a binary save. The whole save is built in one buffer
+	 * and written with one channel write to a temporary file, which then
+	 * replaces the save, so a failed write never damages an existing save.
+	 * <p>
+	 * Layout: the magic, the version, the board size as a byte, one byte per
+	 * tile holding its exponent, row by row, the score, the 2048 flag as a
+	 * byte, the state of the spawn random stream and a CRC32 of all bytes
+	 * before it.
+	 *
+	 * @param file  The save file.
+	 * @param board The board to save.
+	 * @return The number of bytes written.
+	 * @throws IOException If the save cannot be written.
+	 */
+	static int writeSave(File file, Board board) throws IOException {
+		int size = board.size;
+		ByteBuffer buffer = ByteBuffer.allocate(SAVE_FIXED_BYTES + size * size);
+		buffer.putLong(SAVE_MAGIC).putInt(SAVE_VERSION).put((byte) size);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int value = board.tiles[i][j];
+				buffer.put((byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value)));
+			}
+		}
+		buffer.putInt(board.score).put((byte) (board.hasReached2048 ? 1 : 0)).putLong(board.random.getState());
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue()).flip();
+
+		Path target = file.toPath();
+		Path temporary = target.resolveSibling(file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return buffer.limit();
+	}
+
+	/**
+	 * Reads a saved game into a new board, converting a text save of an
+	 * earlier version to a binary save first. Every field is checked before
+	 * the board is built.
+	 *
+	 * @param filename The name of the saved game.
+	 * @return The saved board, with its spawn random stream restored.
+	 * @throws IOException If the save cannot be read or fails a check.
+	 */
+	static Board readSave(String filename) throws IOException {
+		File file = saveFile(filename);
+		if (!file.exists() && legacySaveFile(filename).exists()) {
+			synchronized (SAVES_LOCK) { // Another reader may be converting the same save
+				if (!file.exists() && legacySaveFile(filename).exists())
+					return migrateSave(filename);
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		if (buffer.remaining() < SAVE_FIXED_BYTES + 1 || buffer.getLong() != SAVE_MAGIC)
+			throw new IOException(filename + " is not a saved game.");
+		int version = buffer.getInt();
+		if (version != SAVE_VERSION)
+			throw new IOException("Unsupported save version " + version + " in " + filename + ".");
+		int size = buffer.get();
+		if (size < 1 || size > Board.MAX_SIZE)
+			throw new IOException("Invalid board size " + size + " in " + filename + ".");
+		if (buffer.limit() != SAVE_FIXED_BYTES + size * size)
+			throw new IOException("Truncated save " + filename + ".");
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.limit() - 4);
+		if (buffer.getInt(buffer.limit() - 4) != (int) crc.getValue())
+			throw new IOException("Checksum mismatch in " + filename + ".");
+
+		int[][] tiles = new int[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int exponent = buffer.get();
+				if (exponent < 0 || exponent > 30)
+					throw new IOException("Invalid tile in " + filename + ".");
+				tiles[i][j] = exponent == 0 ? 0 : 1 << exponent;
+			}
+		}
+		int score = buffer.getInt();
+		boolean hasReached2048 = buffer.get() != 0;
+		Board board = new Board(tiles, score, hasReached2048);
+		board.random.setState(buffer.getLong());
+		return board;
+	}
 
-			System.out.println("Game loaded successfully.");
-		} catch (IOException | NoSuchElementException e) {
-			System.out.println("Error: Failed to load the game.");
-			e.printStackTrace();
+	/**
+	 * Reads a text save of an earlier version and replaces it with a binary
+	 * save. Text saves hold no 2048 flag or random state; the flag is cleared,
+	 * as the text loader always left it, and spawns continue from a fresh
+	 * seed. Callers must hold {@code SAVES_LOCK}.
+	 *
+	 * @param filename The name of the saved game.
+	 * @return The saved board.
+	 * @throws IOException If the text save is malformed.
+	 */
+	private static Board migrateSave(String filename) throws IOException {
+		File legacy = legacySaveFile(filename);
+		int[][] tiles;
+		int score;
+		try (Scanner scanner = new Scanner(legacy)) {
+			int size = scanner.nextInt();
+			if (size < 1 || size > Board.MAX_SIZE)
+				throw new IOException("Invalid board size " + size + " in " + filename + ".");
+			tiles = new int[size][size];
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					int value = scanner.nextInt();
+					if (value != 0 && (value < 2 || Integer.bitCount(value) != 1))
+						throw new IOException("Invalid tile " + value + " in " + filename + ".");
+					tiles[i][j] = value;
+				}
+			}
+			score = scanner.nextInt();
+		} catch (NoSuchElementException e) {
+			throw new IOException("Truncated save " + filename + ".", e);
+		}
+		Board board = new Board(tiles, score, false);
+		try {
+			writeSave(saveFile(filename), board);
+			Files.deleteIfExists(legacy.toPath());
+		} catch (IOException e) {
+			System.out.println("Error: Failed to convert the saved game " + filename + ".");
 		}
+		return board;
 	}
 
 	/**
@@ -0,0 +1,106 @@
+package logic;
+
+/**
+ * A view of one event published by a {@link Game}. Subscriptions reuse a
+ * single instance for every event they deliver, so listeners must copy what
+ * they need before returning.
+ */
+public final class GameEvent {
+
+	/**
+	 * The kinds of game events.
+	 */
+	public enum Type {
+		/** A move finished, after the merges and the spawn it caused. */
+		MOVE_APPLIED,
+		/** Two tiles merged into one. */
+		TILES_MERGED,
+		/** A random tile was added. */
+		TILE_SPAWNED,
+		/** A 2048 tile was created while the game had not reached 2048 yet. */
+		REACHED_2048,
+		/** The game ended. */
+		GAME_OVER;
+
+		private static final Type[] VALUES = values();
+	}
+
+	private long sequence; // Position of the event in the game's stream
+	private Type type; // Kind of event
+	private int first; // First argument, see the getters
+	private int second; // Second argument
+	private int third; // Third argument
+
+	GameEvent() {
+	}
+
+	/**
+	 * Fills the view from raw ring buffer fields.
+	 */
+	void set(long sequence, int type, int first, int second, int third) {
+		this.sequence = sequence;
+		this.type = Type.VALUES[type];
+		this.first = first;
+		this.second = second;
+		this.third = third;
+	}
+
+	/**
+	 * @return The position of the event in the stream of its game, starting
+	 *         at zero.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return The kind of event.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return The direction of a {@link Type#MOVE_APPLIED} event.
+	 */
+	public Direction getDirection() {
+		return Direction.fromOrdinal(first);
+	}
+
+	/**
+	 * @return Whether the move of a {@link Type#MOVE_APPLIED} event changed
+	 *         the board.
+	 */
+	public boolean isChanged() {
+		return second != 0;
+	}
+
+	/**
+	 * @return The score after a {@link Type#MOVE_APPLIED},
+	 *         {@link Type#REACHED_2048} or {@link Type#GAME_OVER} event.
+	 */
+	public int getScore() {
+		return third;
+	}
+
+	/**
+	 * @return The value of the merged tile of a {@link Type#TILES_MERGED}
+	 *         event or of the new tile of a {@link Type#TILE_SPAWNED} event.
+	 */
+	public int getValue() {
+		return second;
+	}
+
+	/**
+	 * @return The cell, {@code row * size + col}, of a
+	 *         {@link Type#TILE_SPAWNED} event.
+	 */
+	public int getCell() {
+		return first;
+	}
+
+	@Override
+	public String toString() {
+		return sequence + " " + type + " " + first + " " + second + " " + third;
+	}
+}
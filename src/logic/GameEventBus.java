@@ -0,0 +1,153 @@
+package logic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed-size ring buffer of the events of one game. The thread playing the
+ * game is the only producer: publishing writes a few preallocated array slots
+ * and one release store, never allocates, never locks and never waits for
+ * listeners. The slot of the event being published is not readable, so a ring
+ * of n slots keeps the last n - 1 events. Each {@link Subscription} reads the ring at its own pace from
+ * whichever thread it likes; a subscriber that falls more than the capacity
+ * behind skips the overwritten events and is told how many it lost.
+ */
+public final class GameEventBus {
+
+	private static final VarHandle PUBLISHED;
+
+	static {
+		try {
+			PUBLISHED = MethodHandles.lookup().findVarHandle(GameEventBus.class, "published", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final int mask; // Capacity minus one, the capacity being a power of two
+	private final int[] types; // Event type ordinal per slot
+	private final int[] firsts; // First argument per slot
+	private final int[] seconds; // Second argument per slot
+	private final int[] thirds; // Third argument per slot
+	@SuppressWarnings("unused") // Accessed through PUBLISHED
+	private volatile long published; // Events published so far
+
+	/**
+	 * Receives events from a subscription.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+		/**
+		 * Handles one event. The event object is reused for the next event.
+		 *
+		 * @param event The event.
+		 */
+		void onEvent(GameEvent event);
+	}
+
+	/**
+	 * Creates a bus.
+	 *
+	 * @param capacity The number of events kept for slow subscribers; the ring
+	 *                 has the next power of two above it slots.
+	 */
+	public GameEventBus(int capacity) {
+		int size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity)) << 1);
+		mask = size - 1;
+		types = new int[size];
+		firsts = new int[size];
+		seconds = new int[size];
+		thirds = new int[size];
+	}
+
+	/**
+	 * Starts reading the events published from now on.
+	 *
+	 * @return The new subscription.
+	 */
+	public Subscription subscribe() {
+		return new Subscription((long) PUBLISHED.getAcquire(this));
+	}
+
+	/**
+	 * Appends an event. Must only be called by the thread playing the game.
+	 *
+	 * @param type   The kind of event.
+	 * @param first  The first argument.
+	 * @param second The second argument.
+	 * @param third  The third argument.
+	 */
+	void publish(GameEvent.Type type, int first, int second, int third) {
+		long sequence = (long) PUBLISHED.get(this);
+		int slot = (int) sequence & mask;
+		// Keep the slot writes from becoming visible before the previous release
+		VarHandle.storeStoreFence();
+		types[slot] = type.ordinal();
+		firsts[slot] = first;
+		seconds[slot] = second;
+		thirds[slot] = third;
+		PUBLISHED.setRelease(this, sequence + 1);
+	}
+
+	/**
+	 * One reader's position in the ring. A subscription must only be polled by
+	 * one thread at a time.
+	 */
+	public final class Subscription {
+		private final GameEvent event = new GameEvent(); // Reused view
+		private long next; // Sequence of the next event to read
+		private long missed; // Events overwritten before they were read
+
+		private Subscription(long next) {
+			this.next = next;
+		}
+
+		/**
+		 * Delivers every event published since the last poll.
+		 *
+		 * @param listener Receives the events in order.
+		 * @return The number of events delivered.
+		 */
+		public int poll(Listener listener) {
+			long available = (long) PUBLISHED.getAcquire(GameEventBus.this);
+			int delivered = 0;
+			while (next < available) {
+				long oldest = available - mask; // The slot of available - mask - 1 is being overwritten
+				if (next < oldest) {
+					missed += oldest - next;
+					next = oldest;
+				}
+				int slot = (int) next & mask;
+				int type = types[slot];
+				int first = firsts[slot];
+				int second = seconds[slot];
+				int third = thirds[slot];
+				// The producer may have lapped the slot while it was read
+				VarHandle.loadLoadFence();
+				available = (long) PUBLISHED.getAcquire(GameEventBus.this);
+				if (next < available - mask)
+					continue;
+				event.set(next, type, first, second, third);
+				next++;
+				delivered++;
+				listener.onEvent(event);
+			}
+			return delivered;
+		}
+
+		/**
+		 * @return The number of events lost because this subscription fell
+		 *         too far behind.
+		 */
+		public long getMissed() {
+			return missed;
+		}
+
+		/**
+		 * @return The number of published events not read yet.
+		 */
+		public long getBacklog() {
+			return (long) PUBLISHED.getAcquire(GameEventBus.this) - next;
+		}
+	}
+}
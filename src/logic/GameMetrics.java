@@ -0,0 +1,272 @@
+package logic;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects the engine and persistence counters behind {@link GameMetricsMBean}.
+ * All counters are {@link LongAdder}s so that recording from the move path
+ * costs a single uncontended increment, even with many games running on
+ * different threads.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+	/** The object name the metrics are registered under. */
+	public static final String OBJECT_NAME = "logic:type=GameMetrics";
+
+	private static final int MAX_EXPONENT = 32; // Enough for every int tile value
+
+	private static final GameMetrics INSTANCE = register(new GameMetrics());
+
+	private final LongAdder moves = new LongAdder();
+	private final LongAdder noOpMoves = new LongAdder();
+	private final LongAdder[] merges = new LongAdder[MAX_EXPONENT];
+	private final LongAdder spawns = new LongAdder();
+	private final LongAdder gamesFinished = new LongAdder();
+	private final LongAdder saves = new LongAdder();
+	private final LongAdder saveNanos = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadNanos = new LongAdder();
+	private final LongAdder scoreFileOperations = new LongAdder();
+	private final LongAdder scoreFileNanos = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+
+	private static final long RATE_INTERVAL_MILLIS = 1000; // Move rate sampling interval
+
+	private long sampleMoves; // Move count at the latest rate sample, sampler only
+	private long sampleNanos = System.nanoTime(); // Time of the latest rate sample, sampler only
+	private volatile double movesPerSecond; // Rate between the latest two samples
+
+	private GameMetrics() {
+		for (int i = 0; i < MAX_EXPONENT; i++) {
+			merges[i] = new LongAdder();
+		}
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sampleRate, RATE_INTERVAL_MILLIS, RATE_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Computes the move rate since the previous sample. Runs once per sampling
+	 * interval on the sampler thread.
+	 */
+	private synchronized void sampleRate() {
+		long now = System.nanoTime();
+		long total = moves.sum();
+		movesPerSecond = Math.max(0, total - sampleMoves) * 1e9 / Math.max(1, now - sampleNanos);
+		sampleMoves = total;
+		sampleNanos = now;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server. Failing to register
+	 * (for example when a second class loader already did) only disables the JMX
+	 * view; the counters keep working.
+	 *
+	 * @param metrics The metrics instance to register.
+	 * @return The same instance.
+	 */
+	private static GameMetrics register(GameMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(metrics, name);
+			}
+		} catch (JMException | SecurityException e) {
+			System.out.println("Warning: game metrics are not available over JMX.");
+		}
+		return metrics;
+	}
+
+	/**
+	 * Returns the shared metrics instance, registering it on first use.
+	 *
+	 * @return The game metrics.
+	 */
+	public static GameMetrics get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Records a move request.
+	 *
+	 * @param changed Whether the move changed the board.
+	 */
+	static void recordMove(boolean changed) {
+		INSTANCE.moves.increment();
+		if (!changed) {
+			INSTANCE.noOpMoves.increment();
+		}
+	}
+
+	/**
+	 * Records the creation of a merged tile.
+	 *
+	 * @param value The value of the merged tile.
+	 */
+	static void recordMerge(int value) {
+		INSTANCE.merges[Integer.numberOfTrailingZeros(value) & (MAX_EXPONENT - 1)].increment();
+	}
+
+	/**
+	 * Records a tile spawned on a board.
+	 */
+	static void recordSpawn() {
+		INSTANCE.spawns.increment();
+	}
+
+	/**
+	 * Records the end of a game.
+	 */
+	static void recordGameFinished() {
+		INSTANCE.gamesFinished.increment();
+	}
+
+	/**
+	 * Records a completed saveGame call.
+	 *
+	 * @param nanos The time the save took.
+	 * @param bytes The number of bytes written.
+	 */
+	static void recordSave(long nanos, long bytes) {
+		INSTANCE.saves.increment();
+		INSTANCE.saveNanos.add(nanos);
+		INSTANCE.bytesWritten.add(bytes);
+	}
+
+	/**
+	 * Records a completed loadGame call.
+	 *
+	 * @param nanos The time the load took.
+	 */
+	static void recordLoad(long nanos) {
+		INSTANCE.loads.increment();
+		INSTANCE.loadNanos.add(nanos);
+	}
+
+	/**
+	 * Records a read or append of the score file.
+	 *
+	 * @param nanos The time the operation took.
+	 * @param bytes The number of bytes written, zero for reads.
+	 */
+	static void recordScoreFile(long nanos, long bytes) {
+		INSTANCE.scoreFileOperations.increment();
+		INSTANCE.scoreFileNanos.add(nanos);
+		INSTANCE.bytesWritten.add(bytes);
+	}
+
+	@Override
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	@Override
+	public long getNoOpMoves() {
+		return noOpMoves.sum();
+	}
+
+	@Override
+	public double getMovesPerSecond() {
+		return movesPerSecond;
+	}
+
+	@Override
+	public long[] getMergesByTileExponent() {
+		long[] result = new long[MAX_EXPONENT];
+		for (int i = 0; i < MAX_EXPONENT; i++) {
+			result[i] = merges[i].sum();
+		}
+		return result;
+	}
+
+	@Override
+	public long getSpawns() {
+		return spawns.sum();
+	}
+
+	@Override
+	public long getGamesFinished() {
+		return gamesFinished.sum();
+	}
+
+	@Override
+	public long getSaves() {
+		return saves.sum();
+	}
+
+	@Override
+	public double getAverageSaveMicros() {
+		return averageMicros(saveNanos, saves);
+	}
+
+	@Override
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	@Override
+	public double getAverageLoadMicros() {
+		return averageMicros(loadNanos, loads);
+	}
+
+	@Override
+	public long getScoreFileOperations() {
+		return scoreFileOperations.sum();
+	}
+
+	@Override
+	public double getAverageScoreFileMicros() {
+		return averageMicros(scoreFileNanos, scoreFileOperations);
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	public synchronized void reset() {
+		moves.reset();
+		noOpMoves.reset();
+		for (LongAdder merge : merges) {
+			merge.reset();
+		}
+		spawns.reset();
+		gamesFinished.reset();
+		saves.reset();
+		saveNanos.reset();
+		loads.reset();
+		loadNanos.reset();
+		scoreFileOperations.reset();
+		scoreFileNanos.reset();
+		bytesWritten.reset();
+		sampleMoves = 0;
+		sampleNanos = System.nanoTime();
+		movesPerSecond = 0;
+	}
+
+	/**
+	 * Computes an average latency in microseconds from a total and a count.
+	 *
+	 * @param nanos The total time in nanoseconds.
+	 * @param count The number of operations.
+	 * @return The average in microseconds, or zero when nothing was recorded.
+	 */
+	private static double averageMicros(LongAdder nanos, LongAdder count) {
+		long n = count.sum();
+		return n == 0 ? 0 : nanos.sum() / 1000.0 / n;
+	}
+}
@@ -0,0 +1,83 @@
+package logic;
+
+/**
+ * Management interface exposing the live counters of the game engine and its
+ * persistence paths. Registered with the platform MBean server under
+ * {@code logic:type=GameMetrics} so it can be inspected from JConsole.
+ */
+public interface GameMetricsMBean {
+
+	/**
+	 * @return The total number of moves requested, including no-op moves.
+	 */
+	long getMoves();
+
+	/**
+	 * @return The number of moves that did not change the board.
+	 */
+	long getNoOpMoves();
+
+	/**
+	 * @return The average number of moves per second over the last completed
+	 *         one-second sampling interval. The rate is sampled by a
+	 *         background thread, so every client sees the same rate.
+	 */
+	double getMovesPerSecond();
+
+	/**
+	 * @return Merge counts indexed by the exponent of the resulting tile (index
+	 *         11 holds the number of 2048 tiles created).
+	 */
+	long[] getMergesByTileExponent();
+
+	/**
+	 * @return The number of tiles spawned on boards.
+	 */
+	long getSpawns();
+
+	/**
+	 * @return The number of games that have ended.
+	 */
+	long getGamesFinished();
+
+	/**
+	 * @return The number of completed saveGame calls.
+	 */
+	long getSaves();
+
+	/**
+	 * @return The average latency of saveGame in microseconds.
+	 */
+	double getAverageSaveMicros();
+
+	/**
+	 * @return The number of completed loadGame calls.
+	 */
+	long getLoads();
+
+	/**
+	 * @return The average latency of loadGame in microseconds.
+	 */
+	double getAverageLoadMicros();
+
+	/**
+	 * @return The number of reads and appends of the score file.
+	 */
+	long getScoreFileOperations();
+
+	/**
+	 * @return The average latency of a score file read or append in
+	 *         microseconds.
+	 */
+	double getAverageScoreFileMicros();
+
+	/**
+	 * @return The number of bytes written by saves and score appends.
+	 */
+	long getBytesWritten();
+
+	/**
+	 * Resets every counter to zero.
+	 */
+	void reset();
+}
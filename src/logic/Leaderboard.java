@@ -0,0 +1,298 @@
+package logic;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import logic.jfr.ScoreStoreEvent;
+
+/**
+ * Keeps the best scores of all finished games and appends every submitted
+ * score to the score file. Many threads can submit at once: the best score is
+ * a single compare-and-set, the top scores are kept in independent stripes
+ * that are only locked when a score beats the stripe's lowest entry, and the
+ * file is written in batches by a single background writer. A batch that
+ * cannot be appended is kept and retried with the next one. {@link #close()}
+ * stops the writer once the queue is drained; the global leaderboard is closed
+ * by a shutdown hook.
+ */
+public final class Leaderboard implements AutoCloseable {
+
+	/** The number of top scores kept. */
+	public static final int TOP_SCORES = 10;
+
+	private static final int STRIPES = 16; // Independent top score tables, a power of two
+	private static final long WRITER_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(20); // Writer poll interval
+
+	private static final Leaderboard GLOBAL = new Leaderboard(new File("Score.txt"), TOP_SCORES);
+
+	private final File file; // The score file
+	private final int capacity; // Number of top scores kept
+	private final AtomicInteger best = new AtomicInteger(); // Highest score seen
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>(); // Scores to append
+	private final LongAdder submitted = new LongAdder(); // Scores queued for the file
+	private volatile long written; // Scores appended to the file, updated by the writer only
+	private final LongAdder failedWrites = new LongAdder(); // Appends that failed
+	private volatile boolean closed; // Whether the writer should stop once the queue is empty
+	private volatile boolean loaded; // Whether the file has been read
+	private Thread writer; // The single file writer, started after loading
+
+	/**
+	 * One table of top scores, sorted in descending order.
+	 */
+	private static final class Stripe {
+		final int[] scores; // Top scores of the stripe, guarded by this
+		int count; // Entries in scores, guarded by this
+		volatile int floor = Integer.MIN_VALUE; // Lowest entry once full, MIN_VALUE before
+
+		Stripe(int capacity) {
+			scores = new int[capacity];
+		}
+	}
+
+	/**
+	 * Creates a leaderboard backed by the given score file.
+	 *
+	 * @param file     The file scores are read from and appended to.
+	 * @param capacity The number of top scores to keep.
+	 */
+	public Leaderboard(File file, int capacity) {
+		this.file = file;
+		this.capacity = capacity;
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(capacity);
+		}
+	}
+
+	/**
+	 * Returns the leaderboard backed by {@code Score.txt} that {@link Game}
+	 * reports to.
+	 *
+	 * @return The global leaderboard.
+	 */
+	public static Leaderboard global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Records a finished game's score and queues it for the score file.
+	 *
+	 * @param score The score to submit.
+	 */
+	public void submit(int score) {
+		ensureLoaded();
+		record(score);
+		pending.offer(score);
+		submitted.increment();
+	}
+
+	/**
+	 * @return The highest score recorded, zero if there is none.
+	 */
+	public int best() {
+		ensureLoaded();
+		return best.get();
+	}
+
+	/**
+	 * Returns the top scores in descending order.
+	 *
+	 * @return Up to {@code capacity} scores.
+	 */
+	public int[] top() {
+		ensureLoaded();
+		int[] merged = new int[0];
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				int length = merged.length;
+				merged = Arrays.copyOf(merged, length + stripe.count);
+				System.arraycopy(stripe.scores, 0, merged, length, stripe.count);
+			}
+		}
+		Arrays.sort(merged);
+		int[] top = new int[Math.min(capacity, merged.length)];
+		for (int i = 0; i < top.length; i++) {
+			top[i] = merged[merged.length - 1 - i];
+		}
+		return top;
+	}
+
+	/**
+	 * Reads the score file, if that has not happened yet. Called implicitly by
+	 * the other methods; calling it early moves the file read off the first
+	 * lookup.
+	 */
+	public void load() {
+		ensureLoaded();
+	}
+
+	/**
+	 * Waits until every score submitted so far has been appended to the file,
+	 * or until an append fails.
+	 */
+	public void flush() {
+		if (!loaded)
+			return;
+		long target = submitted.sum();
+		long failures = failedWrites.sum();
+		while (written < target && writer.isAlive() && failedWrites.sum() == failures) {
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	/**
+	 * Stops the writer after it has appended the scores submitted so far,
+	 * trying a failing append once more. Scores submitted later are still
+	 * recorded in memory but no longer written.
+	 */
+	@Override
+	public void close() {
+		if (!loaded)
+			return;
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return The number of appends to the score file that failed; their
+	 *         scores are retried with the next batch.
+	 */
+	public long failedWrites() {
+		return failedWrites.sum();
+	}
+
+	/**
+	 * Adds a score to the in-memory best and top scores.
+	 *
+	 * @param score The score to record.
+	 */
+	private void record(int score) {
+		int current = best.get();
+		while (score > current && !best.compareAndSet(current, score)) {
+			current = best.get();
+		}
+
+		Stripe stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+		if (score <= stripe.floor)
+			return;
+		synchronized (stripe) {
+			int i;
+			if (stripe.count < capacity)
+				i = stripe.count++;
+			else if (score <= stripe.scores[capacity - 1])
+				return;
+			else
+				i = capacity - 1;
+			while (i > 0 && stripe.scores[i - 1] < score) {
+				stripe.scores[i] = stripe.scores[i - 1];
+				i--;
+			}
+			stripe.scores[i] = score;
+			if (stripe.count == capacity)
+				stripe.floor = stripe.scores[capacity - 1];
+		}
+	}
+
+	/**
+	 * Reads the score file and starts the writer on first use.
+	 */
+	private void ensureLoaded() {
+		if (loaded)
+			return;
+		synchronized (this) {
+			if (loaded)
+				return;
+			long start = System.nanoTime();
+			if (file.exists()) {
+				try (Scanner sc = new Scanner(file)) {
+					while (sc.hasNextLine()) {
+						String line = sc.nextLine().trim();
+						if (!line.isEmpty())
+							record(Integer.parseInt(line));
+					}
+				} catch (IOException | NumberFormatException e) {
+					System.out.println("Error: Failed to read the score file.");
+				}
+			}
+			GameMetrics.recordScoreFile(System.nanoTime() - start, 0);
+
+			writer = new Thread(this::writeLoop, "leaderboard-writer");
+			writer.setDaemon(true);
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(this::close, "leaderboard-close"));
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Appends queued scores to the file in batches until the leaderboard is
+	 * closed. A failed batch stays in the buffer and is retried, joined by the
+	 * scores queued meanwhile.
+	 */
+	private void writeLoop() {
+		StringBuilder batch = new StringBuilder();
+		int count = 0;
+		int last = 0;
+		boolean failing = false; // Whether the last append failed, so a failure streak is reported once
+		while (true) {
+			boolean stopping = closed; // Read before polling, so no score queued before close() is missed
+			Integer score;
+			while ((score = pending.poll()) != null) {
+				last = score;
+				batch.append(last).append('\n');
+				count++;
+			}
+			if (count == 0) {
+				if (stopping)
+					return;
+				LockSupport.parkNanos(WRITER_INTERVAL_NANOS);
+				continue;
+			}
+
+			ScoreStoreEvent event = new ScoreStoreEvent();
+			event.begin();
+			long start = System.nanoTime();
+			boolean appended = false;
+			try (BufferedWriter out = new BufferedWriter(new FileWriter(file, true))) {
+				out.write(batch.toString());
+				appended = true;
+			} catch (IOException e) {
+				failedWrites.increment();
+				if (!failing)
+					System.err.println("Error: Failed to append to the score file, retrying: " + e.getMessage());
+			}
+			failing = !appended;
+			GameMetrics.recordScoreFile(System.nanoTime() - start, appended ? batch.length() : 0);
+			if (event.shouldCommit()) {
+				event.operation = appended ? "append" : "append failed";
+				event.score = last;
+				event.bytes = appended ? batch.length() : 0;
+				event.commit();
+			}
+			if (appended) {
+				written += count;
+				batch.setLength(0);
+				count = 0;
+			} else if (stopping) {
+				return; // Already retried once since close()
+			} else {
+				LockSupport.parkNanos(WRITER_INTERVAL_NANOS);
+			}
+		}
+	}
+}
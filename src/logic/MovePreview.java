@@ -0,0 +1,63 @@
+package logic;
+
+/**
+ * The outcome of a move computed without applying it: the tiles after sliding
+ * and merging, before any random tile is spawned, and the score gained.
+ */
+public final class MovePreview {
+
+	private final Direction direction; // The previewed move
+	private final int[][] tiles; // Tiles after the move, owned by this preview
+	private final int gain; // Score gained by the merges
+	private final boolean changed; // Whether the move changes the board
+
+	MovePreview(Direction direction, int[][] tiles, int gain, boolean changed) {
+		this.direction = direction;
+		this.tiles = tiles;
+		this.gain = gain;
+		this.changed = changed;
+	}
+
+	/**
+	 * @return The previewed move.
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Returns the value of a tile after the move.
+	 *
+	 * @param row The row index of the tile.
+	 * @param col The column index of the tile.
+	 * @return The tile value, 0 for an empty cell.
+	 */
+	public int getTileValue(int row, int col) {
+		return tiles[row][col];
+	}
+
+	/**
+	 * @return A copy of the tiles after the move.
+	 */
+	public int[][] getTiles() {
+		int[][] copy = new int[tiles.length][];
+		for (int i = 0; i < tiles.length; i++) {
+			copy[i] = tiles[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * @return The score the move would gain.
+	 */
+	public int getGain() {
+		return gain;
+	}
+
+	/**
+	 * @return True if the move would change the board, false if it is illegal.
+	 */
+	public boolean isChanged() {
+		return changed;
+	}
+}
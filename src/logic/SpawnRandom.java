@@ -0,0 +1,84 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The random number generator deciding where tiles spawn and whether they are
+ * 2s or 4s. It is a SplitMix64 generator whose whole state is one
+ * {@code long}, so a game seeded with the same value always spawns the same
+ * tiles for the same moves, and the state can be saved and restored to
+ * continue a game's random stream exactly.
+ */
+public final class SpawnRandom {
+
+	private static final long GAMMA = 0x9e3779b97f4a7c15L; // Weyl sequence increment
+	private static final AtomicLong SEEDS = new AtomicLong(System.nanoTime()); // Source of default seeds
+
+	private long state; // Current position in the stream
+
+	/**
+	 * Creates a generator with the given seed.
+	 *
+	 * @param seed The seed.
+	 */
+	public SpawnRandom(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * Returns a new seed that differs for every call, for games that do not
+	 * need to be reproducible.
+	 *
+	 * @return A seed.
+	 */
+	public static long newSeed() {
+		return mix(SEEDS.addAndGet(GAMMA) ^ System.nanoTime());
+	}
+
+	/**
+	 * Returns the next pseudorandom value between 0 (inclusive) and the bound
+	 * (exclusive).
+	 *
+	 * @param bound The upper bound, positive.
+	 * @return The value.
+	 */
+	public int nextInt(int bound) {
+		long r = nextLong() >>> 33; // 31 uniform bits
+		long limit = (1L << 31) - (1L << 31) % bound; // Reject the biased tail
+		while (r >= limit) {
+			r = nextLong() >>> 33;
+		}
+		return (int) (r % bound);
+	}
+
+	/**
+	 * @return The next pseudorandom 64-bit value.
+	 */
+	public long nextLong() {
+		state += GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * @return The state of the generator, which restores it with
+	 *         {@link #setState(long)}.
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Restores a state returned by {@link #getState()}.
+	 *
+	 * @param state The state.
+	 */
+	public void setState(long state) {
+		this.state = state;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,50 @@
+package logic;
+
+/**
+ * Chooses where the tile after each move appears and its value, in place of
+ * the board's random spawns. A spawner is attached to one game with
+ * {@link Game#setSpawner(TileSpawner)} and is only called by the thread
+ * playing that game.
+ * <p>
+ * A spawn is encoded in an int as {@code cell * 2}, plus one when the tile is
+ * a 4; see {@link #encode(int, int)}.
+ */
+public interface TileSpawner {
+
+	/**
+	 * Chooses the next spawn.
+	 *
+	 * @param position The position after the player's move; it has at least
+	 *                 one empty cell.
+	 * @param random   The game's random stream, for spawners that randomize.
+	 * @return The encoded spawn, whose cell must be empty.
+	 */
+	int spawn(BoardSnapshot position, SpawnRandom random);
+
+	/**
+	 * Encodes a spawn.
+	 *
+	 * @param cell  The cell, numbered row by row.
+	 * @param value The tile value, 2 or 4.
+	 * @return The encoded spawn.
+	 */
+	static int encode(int cell, int value) {
+		return cell << 1 | (value == 4 ? 1 : 0);
+	}
+
+	/**
+	 * @param spawn An encoded spawn.
+	 * @return The cell of the spawn.
+	 */
+	static int cell(int spawn) {
+		return spawn >>> 1;
+	}
+
+	/**
+	 * @param spawn An encoded spawn.
+	 * @return The tile value of the spawn, 2 or 4.
+	 */
+	static int value(int spawn) {
+		return (spawn & 1) == 0 ? 2 : 4;
+	}
+}
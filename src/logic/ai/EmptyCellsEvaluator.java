@@ -0,0 +1,23 @@
+package logic.ai;
+
+/**
+ * Counts empty cells. Each empty cell lies in one row and one column, so the
+ * score is twice the number of empty cells.
+ */
+public class EmptyCellsEvaluator extends RowTableEvaluator {
+
+	@Override
+	public String name() {
+		return "empty";
+	}
+
+	@Override
+	protected double scoreLine(int[] exponents) {
+		int empty = 0;
+		for (int exponent : exponents) {
+			if (exponent == 0)
+				empty++;
+		}
+		return empty;
+	}
+}
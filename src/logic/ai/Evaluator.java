@@ -0,0 +1,75 @@
+package logic.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import logic.Board;
+import logic.BoardSnapshot;
+
+/**
+ * A heuristic scoring positions for AI players; higher is better.
+ * Implementations are found with {@link ServiceLoader} among the providers
+ * this module declares; the package is not exported, so evaluators are added
+ * here rather than by other modules. The built-in evaluators are
+ * {@code empty}, {@code monotonicity}, {@code smoothness}, {@code merges} and
+ * {@code weighted}, a combination of the others.
+ */
+public interface Evaluator {
+
+	/**
+	 * @return The name the evaluator is looked up by.
+	 */
+	String name();
+
+	/**
+	 * Scores a position.
+	 *
+	 * @param position The position to score.
+	 * @return The heuristic value.
+	 */
+	double evaluate(BoardSnapshot position);
+
+	/**
+	 * Scores the current position of a board.
+	 *
+	 * @param board The board to score.
+	 * @return The heuristic value.
+	 */
+	default double evaluate(Board board) {
+		return evaluate(board.snapshot());
+	}
+
+	/**
+	 * Returns every available evaluator: the service providers visible to this
+	 * module, or the built-in ones when running without a module path.
+	 *
+	 * @return The evaluators.
+	 */
+	static List<Evaluator> available() {
+		List<Evaluator> evaluators = new ArrayList<>();
+		for (Evaluator evaluator : ServiceLoader.load(Evaluator.class)) {
+			evaluators.add(evaluator);
+		}
+		if (evaluators.isEmpty()) {
+			evaluators.add(new EmptyCellsEvaluator());
+			evaluators.add(new MonotonicityEvaluator());
+			evaluators.add(new SmoothnessEvaluator());
+			evaluators.add(new MergePotentialEvaluator());
+			evaluators.add(new WeightedEvaluator());
+		}
+		return evaluators;
+	}
+
+	/**
+	 * Finds an evaluator by name. Every call with the same name returns the
+	 * same instance, so its tables are built only once.
+	 *
+	 * @param name The name of the evaluator.
+	 * @return The evaluator.
+	 * @throws IllegalArgumentException If there is no such evaluator.
+	 */
+	static Evaluator named(String name) {
+		return EvaluatorCache.get(name);
+	}
+}
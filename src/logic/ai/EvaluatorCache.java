@@ -0,0 +1,37 @@
+package logic.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The evaluators returned by {@link Evaluator#named(String)}, one instance per
+ * name. Row table evaluators build their tables once per instance, so sharing
+ * the instances lets every searcher reuse the tables built by the first one.
+ */
+final class EvaluatorCache {
+
+	private static final Map<String, Evaluator> BY_NAME = new ConcurrentHashMap<>(); // Shared instances
+
+	private EvaluatorCache() {
+	}
+
+	/**
+	 * Returns the shared evaluator with a name, creating it on first use.
+	 *
+	 * @param name The name of the evaluator.
+	 * @return The evaluator.
+	 * @throws IllegalArgumentException If there is no such evaluator.
+	 */
+	static Evaluator get(String name) {
+		Evaluator evaluator = BY_NAME.get(name);
+		if (evaluator != null)
+			return evaluator;
+		for (Evaluator candidate : Evaluator.available()) {
+			if (candidate.name().equals(name)) {
+				Evaluator shared = BY_NAME.putIfAbsent(name, candidate);
+				return shared != null ? shared : candidate;
+			}
+		}
+		throw new IllegalArgumentException("Unknown evaluator " + name + ".");
+	}
+}
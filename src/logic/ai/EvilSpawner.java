@@ -0,0 +1,320 @@
+package logic.ai;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.SpawnRandom;
+import logic.TileSpawner;
+import logic.jfr.SearchEvent;
+
+/**
+ * An adversary that spawns the tile leaving the player the worst prospects.
+ * It runs a depth-limited minimax search, the adversary minimizing and the
+ * player maximizing an {@link Evaluator}'s score, with alpha-beta pruning.
+ * <p>
+ * Every decision has a strict time budget: the search deepens one player move
+ * at a time and, once the budget is spent, returns the choice of the deepest
+ * search that completed. Depth one always completes, which takes well under a
+ * millisecond. Searched values are kept in transposition tables and the
+ * decisions in a cache shared by later moves, so the shallow searches a
+ * deepening repeats, and positions reached again, cost little.
+ * <p>
+ * Values and decisions are keyed by the {@link BoardSnapshot#zobristHash()
+ * Zobrist hash} of the tiles, so transpositions reached with different scores
+ * share entries; evaluators only look at the tiles.
+ * <p>
+ * Evaluators build their line tables on first use, which can take longer than
+ * the budget. A spawner created for a board size builds them on a background
+ * thread and, until they are ready, spawns where the player is left the
+ * fewest legal moves instead of searching. A spawner keeps state between
+ * moves and must only be used by one game.
+ */
+public class EvilSpawner implements TileSpawner {
+
+	private static final double LOSS_PENALTY = 1e9; // Subtracted from positions without a legal move
+	private static final int MAX_DEPTH = 16; // Deepest search, in player moves
+	private static final int CHECK_INTERVAL = 256; // Nodes between deadline checks
+	private static final int TABLE_LIMIT = 1 << 13; // Entries per transposition table before it is cleared
+	private static final int DECISION_CACHE = 4096; // Decisions remembered
+	private static final byte EXACT = 0, LOWER = 1, UPPER = 2; // Kinds of stored values
+
+	private final long budgetNanos; // Time allowed per decision
+	private final Evaluator evaluator; // Scores the leaves
+	private final Map<Long, Entry> playerTable = new HashMap<>(); // Values of player nodes by Zobrist hash
+	private final Map<Long, Entry> spawnTable = new HashMap<>(); // Values of adversary nodes by Zobrist hash
+	private final Map<Long, Decision> decisions = new LinkedHashMap<Long, Decision>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Decision> eldest) {
+			return size() > DECISION_CACHE;
+		}
+	}; // Root decisions by Zobrist hash, least recently used first
+	private volatile boolean ready; // Whether the evaluator's tables are built
+	private long deadline; // System.nanoTime() at which the current search stops
+	private boolean armed; // Whether the deadline applies, false until depth one completes
+	private long nodes; // Positions visited by the current decision
+
+	/**
+	 * A value stored in a transposition table.
+	 */
+	private static final class Entry {
+		final int depth; // Player moves searched below the node
+		final double value; // The value or its bound
+		final byte kind; // EXACT, LOWER or UPPER
+
+		Entry(int depth, double value, byte kind) {
+			this.depth = depth;
+			this.value = value;
+			this.kind = kind;
+		}
+	}
+
+	/**
+	 * The best spawn found for a position.
+	 */
+	private static final class Decision {
+		final int depth; // Player moves searched
+		final int spawn; // The encoded spawn
+
+		Decision(int depth, int spawn) {
+			this.depth = depth;
+			this.spawn = spawn;
+		}
+	}
+
+	/**
+	 * Creates a spawner for games of one board size with the time budget set
+	 * by the system property {@code evil.budgetMillis}, by default 5 ms, and
+	 * the evaluator named by {@code ai.evaluator}. The evaluator's tables for
+	 * the size are built on a background thread, so the calling thread, such
+	 * as the event dispatch thread, never waits for them.
+	 *
+	 * @param size The board size.
+	 */
+	public EvilSpawner(int size) {
+		this(TimeUnit.MILLISECONDS.toNanos(Long.getLong("evil.budgetMillis", 5)),
+				Evaluator.named(System.getProperty("ai.evaluator", "weighted")), false);
+		Thread warmup = new Thread(() -> {
+			evaluator.evaluate(BoardSnapshot.of(new int[size][size], 0));
+			ready = true;
+		}, "evil-warmup");
+		warmup.setDaemon(true);
+		warmup.start();
+	}
+
+	/**
+	 * Creates a spawner. The first decision for a board size builds the
+	 * evaluator's tables, which is not limited by the budget.
+	 *
+	 * @param budgetNanos The time allowed per decision.
+	 * @param evaluator   The heuristic the adversary minimizes.
+	 */
+	public EvilSpawner(long budgetNanos, Evaluator evaluator) {
+		this(budgetNanos, evaluator, true);
+	}
+
+	private EvilSpawner(long budgetNanos, Evaluator evaluator, boolean ready) {
+		this.budgetNanos = budgetNanos;
+		this.evaluator = evaluator;
+		this.ready = ready;
+	}
+
+	@Override
+	public int spawn(BoardSnapshot position, SpawnRandom random) {
+		if (!ready)
+			return fewestMoves(position);
+		deadline = System.nanoTime() + budgetNanos;
+		armed = false;
+		nodes = 0;
+		if (playerTable.size() > TABLE_LIMIT)
+			playerTable.clear();
+		if (spawnTable.size() > TABLE_LIMIT)
+			spawnTable.clear();
+
+		long key = position.zobristHash();
+		Decision cached = decisions.get(key);
+		if (cached != null && cached.depth >= MAX_DEPTH)
+			return cached.spawn;
+		int best = cached != null ? cached.spawn : -1;
+		int depth = 0;
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		try {
+			while (depth < MAX_DEPTH) {
+				best = root(position, depth + 1, best);
+				depth++;
+				armed = true;
+				if (System.nanoTime() >= deadline)
+					break;
+			}
+		} catch (CancellationException e) {
+			// Keep the choice of the deepest completed search
+		}
+		if (cached == null || depth > cached.depth)
+			decisions.put(key, new Decision(depth, best));
+		if (event.shouldCommit()) {
+			event.searcher = "evil";
+			event.boardSize = position.size();
+			event.depth = depth;
+			event.nodes = nodes;
+			event.bestMove = TileSpawner.value(best) + "@" + TileSpawner.cell(best);
+			event.commit();
+		}
+		return best;
+	}
+
+	/**
+	 * Chooses the spawn leaving the player the fewest legal moves, preferring
+	 * a 4; used while the evaluator's tables are being built.
+	 *
+	 * @return The encoded spawn.
+	 */
+	private static int fewestMoves(BoardSnapshot position) {
+		int best = -1;
+		int fewest = Integer.MAX_VALUE;
+		int cells = position.size() * position.size();
+		for (int cell = 0; cell < cells; cell++) {
+			if (position.exponent(cell) != 0)
+				continue;
+			for (int value = 4; value >= 2; value -= 2) {
+				int moves = Integer.bitCount(position.withSpawn(cell, value).legalMoves());
+				if (moves < fewest) {
+					fewest = moves;
+					best = TileSpawner.encode(cell, value);
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Searches every spawn of the position to a depth, trying the previous
+	 * best spawn first so the others are cut off sooner.
+	 *
+	 * @return The encoded spawn with the lowest value.
+	 */
+	private int root(BoardSnapshot position, int depth, int first) {
+		int best = -1;
+		double beta = Double.POSITIVE_INFINITY;
+		if (first >= 0) {
+			best = first;
+			beta = player(position.withSpawn(TileSpawner.cell(first), TileSpawner.value(first)), depth,
+					Double.NEGATIVE_INFINITY, beta);
+		}
+		int cells = position.size() * position.size();
+		for (int cell = 0; cell < cells; cell++) {
+			if (position.exponent(cell) != 0)
+				continue;
+			for (int value = 2; value <= 4; value += 2) {
+				int spawn = TileSpawner.encode(cell, value);
+				if (spawn == first)
+					continue;
+				double v = player(position.withSpawn(cell, value), depth, Double.NEGATIVE_INFINITY, beta);
+				if (v < beta || best < 0) {
+					beta = v;
+					best = spawn;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the value of a position where the player is to move, searching
+	 * the given number of player moves.
+	 */
+	private double player(BoardSnapshot position, int depth, double alpha, double beta) {
+		visit();
+		int legal = position.legalMoves();
+		if (legal == 0)
+			return evaluator.evaluate(position) - LOSS_PENALTY;
+		if (depth == 0)
+			return evaluator.evaluate(position);
+		long key = position.zobristHash();
+		Entry entry = playerTable.get(key);
+		if (entry != null && entry.depth >= depth) {
+			if (entry.kind == EXACT || entry.kind == LOWER && entry.value >= beta
+					|| entry.kind == UPPER && entry.value <= alpha)
+				return entry.value;
+		}
+
+		double originalAlpha = alpha;
+		double best = Double.NEGATIVE_INFINITY;
+		for (Direction direction : Direction.values()) {
+			if ((legal & direction.bit()) == 0)
+				continue;
+			double value = adversary(position.withMove(direction), depth - 1, alpha, beta);
+			if (value > best) {
+				best = value;
+				if (best >= beta)
+					break;
+				alpha = Math.max(alpha, best);
+			}
+		}
+		playerTable.put(key, new Entry(depth, best, kind(best, originalAlpha, beta)));
+		return best;
+	}
+
+	/**
+	 * Returns the value of a position where the adversary is to spawn, with
+	 * the given number of player moves left to search.
+	 */
+	private double adversary(BoardSnapshot position, int depth, double alpha, double beta) {
+		visit();
+		if (depth == 0)
+			return evaluator.evaluate(position);
+		long key = position.zobristHash();
+		Entry entry = spawnTable.get(key);
+		if (entry != null && entry.depth >= depth) {
+			if (entry.kind == EXACT || entry.kind == LOWER && entry.value >= beta
+					|| entry.kind == UPPER && entry.value <= alpha)
+				return entry.value;
+		}
+
+		double originalBeta = beta;
+		double best = Double.POSITIVE_INFINITY;
+		int cells = position.size() * position.size();
+		search: for (int cell = 0; cell < cells; cell++) {
+			if (position.exponent(cell) != 0)
+				continue;
+			for (int value = 2; value <= 4; value += 2) {
+				double v = player(position.withSpawn(cell, value), depth, alpha, beta);
+				if (v < best) {
+					best = v;
+					if (best <= alpha)
+						break search;
+					beta = Math.min(beta, best);
+				}
+			}
+		}
+		if (best == Double.POSITIVE_INFINITY) // A full board cannot occur after a move, but stay total
+			best = player(position, depth, alpha, originalBeta);
+		spawnTable.put(key, new Entry(depth, best, kind(best, alpha, originalBeta)));
+		return best;
+	}
+
+	/**
+	 * Classifies a fail-soft alpha-beta result.
+	 */
+	private static byte kind(double value, double alpha, double beta) {
+		if (value <= alpha)
+			return UPPER;
+		if (value >= beta)
+			return LOWER;
+		return EXACT;
+	}
+
+	/**
+	 * Counts a node and abandons the search once the budget is spent.
+	 */
+	private void visit() {
+		if (++nodes % CHECK_INTERVAL == 0 && armed && System.nanoTime() >= deadline)
+			throw new CancellationException();
+	}
+}
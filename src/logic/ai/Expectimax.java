@@ -0,0 +1,172 @@
+package logic.ai;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.jfr.SearchEvent;
+
+/**
+ * Depth-limited expectimax search over {@link BoardSnapshot}s. Player nodes
+ * take the best of the legal moves, chance nodes average over every empty
+ * cell receiving a 2 or a 4 with equal probability, as {@code Board} spawns
+ * them. Leaves are scored by an {@link Evaluator}; positions without a legal
+ * move score far below any other.
+ * <p>
+ * A searcher may be given an {@link OpeningBook}; positions found in it are
+ * answered with the book move without searching.
+ */
+public class Expectimax {
+
+	private static final int CHECK_INTERVAL = 1024; // Nodes between cancellation checks
+
+	private static final double LOSS_PENALTY = 1e9; // Subtracted from positions without a legal move
+
+	private final int depth; // Moves searched ahead
+	private final Evaluator evaluator; // Scores the leaves
+	private final OpeningBook book; // Precomputed moves, or null
+
+	/**
+	 * Creates a searcher using the evaluator named by the system property
+	 * {@code ai.evaluator}, by default {@code weighted}, and the
+	 * {@link OpeningBook#configured() configured} opening book.
+	 *
+	 * @param depth The number of moves to look ahead, at least 1.
+	 */
+	public Expectimax(int depth) {
+		this(depth, Evaluator.named(System.getProperty("ai.evaluator", "weighted")), OpeningBook.configured());
+	}
+
+	/**
+	 * Creates a searcher without an opening book.
+	 *
+	 * @param depth     The number of moves to look ahead, at least 1.
+	 * @param evaluator The heuristic scoring the leaves.
+	 */
+	public Expectimax(int depth, Evaluator evaluator) {
+		this(depth, evaluator, null);
+	}
+
+	/**
+	 * Creates a searcher.
+	 *
+	 * @param depth     The number of moves to look ahead, at least 1.
+	 * @param evaluator The heuristic scoring the leaves.
+	 * @param book      The opening book consulted before searching, or null.
+	 */
+	public Expectimax(int depth, Evaluator evaluator, OpeningBook book) {
+		if (depth < 1)
+			throw new IllegalArgumentException("Depth must be at least 1.");
+		this.depth = depth;
+		this.evaluator = evaluator;
+		this.book = book;
+	}
+
+	/**
+	 * @return The number of moves searched ahead.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Finds the best move for a position, from the opening book if it holds
+	 * the position and otherwise by searching.
+	 *
+	 * @param position  The position to search.
+	 * @param cancelled Polled during the search; once it returns true the
+	 *                  search is abandoned.
+	 * @return The best move, or null if no move is legal.
+	 * @throws CancellationException If the search was cancelled.
+	 */
+	public Direction bestMove(BoardSnapshot position, BooleanSupplier cancelled) {
+		if (book != null) {
+			Direction known = book.lookup(position);
+			if (known != null)
+				return known;
+		}
+		Search search = new Search(evaluator, cancelled);
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		Direction best = null;
+		try {
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (Direction direction : Direction.values()) {
+				BoardSnapshot next = position.withMove(direction);
+				if (next == position)
+					continue;
+				double value = search.chance(next, depth - 1);
+				if (value > bestValue) {
+					bestValue = value;
+					best = direction;
+				}
+			}
+			return best;
+		} catch (CancellationException e) {
+			event.cancelled = true;
+			throw e;
+		} finally {
+			if (event.shouldCommit()) {
+				event.searcher = "expectimax";
+				event.boardSize = position.size();
+				event.depth = depth;
+				event.nodes = search.nodes;
+				event.bestMove = best == null ? null : best.name();
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * The state of a single search.
+	 */
+	private static final class Search {
+		private final Evaluator evaluator; // Scores the leaves
+		private final BooleanSupplier cancelled; // Cancellation flag of the caller
+		private long nodes; // Positions visited
+
+		Search(Evaluator evaluator, BooleanSupplier cancelled) {
+			this.evaluator = evaluator;
+			this.cancelled = cancelled;
+		}
+
+		/**
+		 * Returns the value of a position where the player is to move.
+		 */
+		double max(BoardSnapshot position, int depth) {
+			visit();
+			if (depth == 0)
+				return evaluator.evaluate(position);
+			double best = Double.NEGATIVE_INFINITY;
+			for (Direction direction : Direction.values()) {
+				BoardSnapshot next = position.withMove(direction);
+				if (next != position)
+					best = Math.max(best, chance(next, depth - 1));
+			}
+			return best == Double.NEGATIVE_INFINITY ? evaluator.evaluate(position) - LOSS_PENALTY : best;
+		}
+
+		/**
+		 * Returns the expected value of a position about to receive a tile.
+		 */
+		double chance(BoardSnapshot position, int depth) {
+			visit();
+			int empty = 0;
+			double total = 0;
+			int cells = position.size() * position.size();
+			for (int cell = 0; cell < cells; cell++) {
+				if (position.exponent(cell) != 0)
+					continue;
+				empty++;
+				total += max(position.withSpawn(cell, 2), depth) + max(position.withSpawn(cell, 4), depth);
+			}
+			return empty == 0 ? max(position, depth) : total / (2 * empty);
+		}
+
+		private void visit() {
+			if (++nodes % CHECK_INTERVAL == 0 && cancelled.getAsBoolean())
+				throw new CancellationException();
+		}
+	}
+}
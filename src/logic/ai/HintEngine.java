@@ -0,0 +1,226 @@
+package logic.ai;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+
+/**
+ * Computes move hints in the background while the player thinks. Each time
+ * the position changes the engine searches it, then keeps going with the
+ * positions the hinted move can lead to, so the next hint is usually ready
+ * before it is asked for. A position change cancels every search still
+ * running for older positions, except the search of the new position itself,
+ * which then goes on to search ahead as if it had been started for it.
+ * <p>
+ * The engine runs on at most {@code hint.threads} low-priority daemon threads
+ * (by default half the processors) and searches {@code hint.depth} moves
+ * ahead (by default 3). Callers never block: {@link #hint(BoardSnapshot)}
+ * answers from the cache and {@link #whenReady(BoardSnapshot, Consumer)}
+ * delivers a hint once it has been computed.
+ */
+public class HintEngine implements AutoCloseable {
+
+	private static final int CACHE_LIMIT = 4096; // Cached hints before the cache is cleared
+
+	private final Expectimax search; // The bounded search
+	private final ExecutorService workers; // Budgeted search threads
+	private final Map<BoardSnapshot, Direction> hints = new ConcurrentHashMap<>(); // Finished hints
+	private final AtomicInteger generation = new AtomicInteger(); // Bumped on every position change
+	private final Set<BoardSnapshot> searching = ConcurrentHashMap.newKeySet(); // Positions being searched
+	private volatile BoardSnapshot current; // The position on screen
+	private final AtomicReference<Consumer<Direction>> waiting = new AtomicReference<>(); // Callback for the current position
+
+	/**
+	 * Creates an engine with the thread budget and depth from the system
+	 * properties {@code hint.threads} and {@code hint.depth}.
+	 */
+	public HintEngine() {
+		this(Integer.getInteger("hint.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+				Integer.getInteger("hint.depth", 3));
+	}
+
+	/**
+	 * Creates an engine.
+	 *
+	 * @param threads The maximum number of search threads.
+	 * @param depth   The number of moves to search ahead.
+	 */
+	public HintEngine(int threads, int depth) {
+		this.search = new Expectimax(depth);
+		AtomicInteger count = new AtomicInteger();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), task -> {
+					Thread thread = new Thread(task, "hint-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		this.workers = pool;
+	}
+
+	/**
+	 * Tells the engine the position has changed. Stale searches are cancelled
+	 * and the new position is searched, followed by its likely successors. A
+	 * speculative search already running for the new position is kept.
+	 *
+	 * @param position The position now on screen.
+	 */
+	public void positionChanged(BoardSnapshot position) {
+		current = position; // Before the generation, so a search of it never sees itself stale
+		int stamp = generation.incrementAndGet();
+		waiting.set(null);
+		if (hints.size() > CACHE_LIMIT)
+			hints.clear();
+		if (!searching.contains(position))
+			workers.execute(() -> searchAhead(position, stamp));
+	}
+
+	/**
+	 * Returns the hint for a position if it has already been computed.
+	 *
+	 * @param position The position.
+	 * @return The best move, or null if it is not known yet or there is none.
+	 */
+	public Direction hint(BoardSnapshot position) {
+		return hints.get(position);
+	}
+
+	/**
+	 * Delivers the hint for the current position to a callback: immediately if
+	 * it is known, otherwise from a search thread as soon as it is computed.
+	 * The callback is dropped if the position changes first.
+	 *
+	 * @param position The current position.
+	 * @param callback Receives the best move, or null if there is none.
+	 */
+	public void whenReady(BoardSnapshot position, Consumer<Direction> callback) {
+		if (!position.equals(current))
+			return;
+		waiting.set(callback);
+		Direction known = hints.get(position);
+		if (known != null || position.legalMoves() == 0)
+			deliver(position, known);
+	}
+
+	/**
+	 * Stops the search threads.
+	 */
+	@Override
+	public void close() {
+		current = null;
+		generation.incrementAndGet();
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Searches a position and then the positions its best move leads to, one
+	 * task per follow-up so that idle threads share the work.
+	 *
+	 * @param position The position to search.
+	 * @param stamp    The generation the search belongs to.
+	 */
+	private void searchAhead(BoardSnapshot position, int stamp) {
+		Direction best = solve(position, stamp);
+		if (best != null)
+			searchFollowUps(position, best, stamp);
+	}
+
+	/**
+	 * Searches the positions a move can lead to, one task per spawn.
+	 *
+	 * @param position The position the move is made in.
+	 * @param best     The move.
+	 * @param stamp    The generation the searches belong to.
+	 */
+	private void searchFollowUps(BoardSnapshot position, Direction best, int stamp) {
+		BoardSnapshot moved = position.withMove(best);
+		int cells = moved.size() * moved.size();
+		for (int cell = 0; cell < cells; cell++) {
+			if (moved.exponent(cell) != 0)
+				continue;
+			for (int value = 2; value <= 4; value += 2) {
+				BoardSnapshot next = moved.withSpawn(cell, value);
+				workers.execute(() -> followUp(next, stamp));
+			}
+		}
+	}
+
+	/**
+	 * Searches a follow-up position. If the player reached it while it was
+	 * being searched, its own follow-ups are searched next, since
+	 * {@link #positionChanged(BoardSnapshot)} left it to this search.
+	 *
+	 * @param position The follow-up position.
+	 * @param stamp    The generation the search was started in.
+	 */
+	private void followUp(BoardSnapshot position, int stamp) {
+		Direction best = solve(position, stamp);
+		int now = generation.get();
+		if (best != null && now != stamp && position.equals(current))
+			searchFollowUps(position, best, now);
+	}
+
+	/**
+	 * @return Whether a search of a position started in a generation is no
+	 *         longer wanted: the position changed and it is not the new one.
+	 */
+	private boolean stale(BoardSnapshot position, int stamp) {
+		return generation.get() != stamp && !position.equals(current);
+	}
+
+	/**
+	 * Finds the best move of a position unless it is cached or the search has
+	 * gone stale.
+	 *
+	 * @param position The position to search.
+	 * @param stamp    The generation the search belongs to.
+	 * @return The best move, or null if there is none or the search was
+	 *         cancelled.
+	 */
+	private Direction solve(BoardSnapshot position, int stamp) {
+		Direction best = hints.get(position);
+		if (best == null) {
+			if (stale(position, stamp))
+				return null;
+			searching.add(position);
+			try {
+				best = search.bestMove(position, () -> stale(position, stamp));
+			} catch (CancellationException e) {
+				return null;
+			} finally {
+				searching.remove(position);
+			}
+			if (best != null)
+				hints.put(position, best);
+		}
+		deliver(position, best);
+		return best;
+	}
+
+	/**
+	 * Hands a hint to the waiting callback, at most once, if the position is
+	 * still the current one.
+	 *
+	 * @param position The position the hint is for.
+	 * @param best     The best move, or null if there is none.
+	 */
+	private void deliver(BoardSnapshot position, Direction best) {
+		if (!position.equals(current))
+			return;
+		Consumer<Direction> callback = waiting.getAndSet(null);
+		if (callback != null)
+			callback.accept(best);
+	}
+}
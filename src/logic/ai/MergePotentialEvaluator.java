@@ -0,0 +1,30 @@
+package logic.ai;
+
+/**
+ * Counts the merges available in a line: pairs of equal tiles that would meet
+ * if the line were moved, ignoring empty cells between them.
+ */
+public class MergePotentialEvaluator extends RowTableEvaluator {
+
+	@Override
+	public String name() {
+		return "merges";
+	}
+
+	@Override
+	protected double scoreLine(int[] exponents) {
+		int merges = 0;
+		int previous = 0;
+		for (int exponent : exponents) {
+			if (exponent == 0)
+				continue;
+			if (exponent == previous) {
+				merges++;
+				previous = 0;
+			} else {
+				previous = exponent;
+			}
+		}
+		return merges;
+	}
+}
@@ -0,0 +1,30 @@
+package logic.ai;
+
+/**
+ * Penalises lines whose tiles do not grow steadily towards one end. The
+ * penalty of a line is the smaller of its total increase and total decrease,
+ * measured on the fourth power of the exponents so that disorder among large
+ * tiles costs more.
+ */
+public class MonotonicityEvaluator extends RowTableEvaluator {
+
+	@Override
+	public String name() {
+		return "monotonicity";
+	}
+
+	@Override
+	protected double scoreLine(int[] exponents) {
+		double increase = 0;
+		double decrease = 0;
+		for (int i = 0; i + 1 < exponents.length; i++) {
+			double a = Math.pow(exponents[i], 4);
+			double b = Math.pow(exponents[i + 1], 4);
+			if (a > b)
+				decrease += a - b;
+			else
+				increase += b - a;
+		}
+		return -Math.min(increase, decrease);
+	}
+}
@@ -0,0 +1,203 @@
+package logic.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+
+/**
+ * Best moves for common positions, computed ahead of time by deep searches so
+ * players can answer them without searching. A book is a read-only,
+ * memory-mapped file: a header, the {@link Board#canonicalKey(int[][])
+ * canonical keys} of its positions in ascending order and then one move per
+ * key. A lookup is one binary search over the keys, a few microseconds even
+ * for millions of positions.
+ * <p>
+ * Symmetric positions share a key, so a move is stored as it applies to the
+ * position turned by its {@link Board#canonicalSymmetry(int[][]) canonical
+ * symmetry} and turned back for the position looked up. A book holds positions
+ * of one board size and may be shared by any number of threads.
+ */
+public final class OpeningBook {
+
+	/** Identifies book files, "2048BOOK" in ASCII. */
+	static final long MAGIC = 0x32303438424F4F4BL;
+	/** The file format version. */
+	static final int VERSION = 1;
+	/** Bytes before the keys: magic, version, board size and key count. */
+	static final int HEADER_BYTES = 8 + 4 + 4 + 8;
+
+	private static OpeningBook configured; // The book named by ai.book, once opened
+	private static boolean configuredOpened; // Whether opening it has been tried
+
+	private final int size; // Board size of the positions
+	private final LongBuffer keys; // Canonical keys, ascending
+	private final ByteBuffer moves; // Move ordinals in the canonical orientation, by key index
+
+	private OpeningBook(int size, LongBuffer keys, ByteBuffer moves) {
+		this.size = size;
+		this.keys = keys;
+		this.moves = moves;
+	}
+
+	/**
+	 * Opens a book file.
+	 *
+	 * @param file The book file.
+	 * @return The book.
+	 * @throws IOException If the file cannot be read or is not a book.
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		ByteBuffer map;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is not an opening book.");
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (map.getLong(0) != MAGIC)
+			throw new IOException(file + " is not an opening book.");
+		int version = map.getInt(8);
+		if (version != VERSION)
+			throw new IOException("Unsupported opening book version " + version + ".");
+		int size = map.getInt(12);
+		long count = map.getLong(16);
+		if (size < 2 || count < 0 || HEADER_BYTES + count * (Long.BYTES + 1) != map.capacity())
+			throw new IOException(file + " is truncated or corrupt.");
+
+		map.position(HEADER_BYTES).limit(HEADER_BYTES + (int) count * Long.BYTES);
+		LongBuffer keys = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		map.position(HEADER_BYTES + (int) count * Long.BYTES).limit(map.capacity());
+		ByteBuffer moves = map.slice();
+		return new OpeningBook(size, keys, moves);
+	}
+
+	/**
+	 * Returns the book named by the system property {@code ai.book}, by default
+	 * {@code openingBook.bin} in the working directory. The file is opened on
+	 * the first call; a missing file means no book and an unreadable one is
+	 * reported and ignored.
+	 *
+	 * @return The book, or null if there is none.
+	 */
+	public static synchronized OpeningBook configured() {
+		if (!configuredOpened) {
+			configuredOpened = true;
+			Path file = Paths.get(System.getProperty("ai.book", "openingBook.bin"));
+			try {
+				configured = open(file);
+			} catch (NoSuchFileException e) {
+				// No book
+			} catch (IOException e) {
+				System.err.println("Error: Cannot open opening book " + file + ": " + e.getMessage());
+			}
+		}
+		return configured;
+	}
+
+	/**
+	 * @return The board size of the book's positions.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The number of positions in the book.
+	 */
+	public int getPositions() {
+		return keys.limit();
+	}
+
+	/**
+	 * Looks up the best move for a position.
+	 *
+	 * @param position The position.
+	 * @return The book move, which is legal, or null if the position is not in
+	 *         the book.
+	 */
+	public Direction lookup(BoardSnapshot position) {
+		if (position.size() != size)
+			return null;
+		int[][] tiles = position.tiles();
+		int index = find(Board.canonicalKey(tiles));
+		if (index < 0)
+			return null;
+		Direction stored = Direction.fromOrdinal(moves.get(index) & 3);
+		int symmetry = Board.canonicalSymmetry(tiles);
+		for (Direction direction : Direction.values()) {
+			if (Board.transform(direction, symmetry) == stored)
+				return (position.legalMoves() & direction.bit()) != 0 ? direction : null;
+		}
+		return null;
+	}
+
+	/**
+	 * @return The index of a key, or -1 if it is not in the book.
+	 */
+	private int find(long key) {
+		int low = 0;
+		int high = keys.limit() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long k = keys.get(mid);
+			if (k < key)
+				low = mid + 1;
+			else if (k > key)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes a book, replacing the file atomically.
+	 *
+	 * @param file  The book file.
+	 * @param size  The board size of the positions.
+	 * @param moves The moves by canonical key, each in the orientation of the
+	 *              position turned by its canonical symmetry; see
+	 *              {@link Board#transform(Direction, int)}.
+	 * @throws IOException If writing fails.
+	 */
+	public static void write(Path file, int size, Map<Long, Direction> moves) throws IOException {
+		long[] keys = new long[moves.size()];
+		int n = 0;
+		for (long key : moves.keySet()) {
+			keys[n++] = key;
+		}
+		Arrays.sort(keys);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + keys.length * (Long.BYTES + 1))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putLong(MAGIC).putInt(VERSION).putInt(size).putLong(keys.length);
+		for (long key : keys) {
+			buffer.putLong(key);
+		}
+		for (long key : keys) {
+			buffer.put((byte) moves.get(key).ordinal());
+		}
+		buffer.flip();
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,616 @@
+package logic.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import logic.Board;
+import logic.Game;
+
+/**
+ * Solves small variants of the game exactly. Every position reachable under
+ * {@link Board}'s rules is enumerated, then the probability of reaching a
+ * target tile under optimal play is computed backwards from the end of the
+ * game.
+ * <p>
+ * Positions are packed into a {@code long} with four bits per cell holding the
+ * tile's exponent, so boards of up to 4x4 cells and targets up to 2^15 are
+ * supported. A spawn always adds 2 or 4 to the sum of the tiles while moves
+ * keep it, so positions fall into layers by tile sum and every successor of a
+ * layer lies in a later one. Each layer is stored as three memory-mapped files
+ * in the solver directory: the sorted packed positions, their win
+ * probabilities and their best moves. Layers are generated in increasing and
+ * solved in decreasing order, each one in parallel, and a progress file lets
+ * an interrupted run resume with the first unfinished layer. Once solved, the
+ * best move for a position is one binary search in its layer.
+ */
+public class RetrogradeSolver {
+
+	/** Move codes, equal to the ordinals of {@link logic.Direction}. */
+	public static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+	private static final int CHUNK = 4096; // Positions per parallel task
+	private static final String PROGRESS = "progress.properties";
+
+	private final int size; // Board size
+	private final int cells; // Number of cells
+	private final int target; // Exponent of the winning tile
+	private final Path directory; // Where layers and progress are stored
+	private final ForkJoinPool pool; // Workers for layer generation and solving
+	private final int[][][] lines; // Cell indices per direction, line and position
+	private final int[] lineMoves; // Packed line to the packed line slid towards position 0
+	private final Map<Integer, Layer> layers = new ConcurrentHashMap<>(); // Opened layers by tile sum
+	private final Properties progress = new Properties(); // Persistent progress of the run
+
+	/**
+	 * Creates a solver.
+	 *
+	 * @param size       The board size, 3 or 4.
+	 * @param targetTile The tile that wins the game, a power of two up to 32768.
+	 * @param directory  The directory holding the layer files.
+	 * @param threads    The number of worker threads.
+	 * @throws IOException If the directory or progress file cannot be read.
+	 */
+	public RetrogradeSolver(int size, int targetTile, Path directory, int threads) throws IOException {
+		if (size < 2 || size > 4)
+			throw new IllegalArgumentException("Board size must be between 2 and 4.");
+		if (Integer.bitCount(targetTile) != 1 || targetTile < 4 || targetTile > 1 << 15)
+			throw new IllegalArgumentException("Target tile must be a power of two between 4 and 32768.");
+		this.size = size;
+		this.cells = size * size;
+		this.target = Integer.numberOfTrailingZeros(targetTile);
+		this.directory = directory;
+		this.pool = new ForkJoinPool(threads);
+		this.lines = buildLines(size);
+		this.lineMoves = buildLineMoves(size);
+
+		Files.createDirectories(directory);
+		Path file = directory.resolve(PROGRESS);
+		if (Files.exists(file)) {
+			try (InputStream in = Files.newInputStream(file)) {
+				progress.load(in);
+			}
+			if (Integer.parseInt(progress.getProperty("size")) != size
+					|| Integer.parseInt(progress.getProperty("target")) != target)
+				throw new IllegalArgumentException("Directory " + directory + " holds a different variant.");
+		} else {
+			progress.setProperty("size", Integer.toString(size));
+			progress.setProperty("target", Integer.toString(target));
+		}
+	}
+
+	/**
+	 * Solves a variant from the command line: board size, target tile, and
+	 * optionally the directory and number of threads.
+	 *
+	 * @param args The command line arguments.
+	 * @throws IOException If the layer files cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int target = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+		Path directory = Paths.get(args.length > 2 ? args[2] : "solver-" + size + "x" + size + "-" + target);
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		RetrogradeSolver solver = new RetrogradeSolver(size, target, directory, threads);
+		solver.solve();
+		System.out.println("Probability of reaching " + target + " from a new game: " + solver.startValue());
+	}
+
+	/**
+	 * Generates and solves every layer that is not finished yet.
+	 *
+	 * @throws IOException If the layer files cannot be written.
+	 */
+	public void solve() throws IOException {
+		generate();
+		backup();
+	}
+
+	/**
+	 * Returns the probability of reaching the target from a position where the
+	 * player is to move.
+	 *
+	 * @param state The packed position.
+	 * @return The win probability under optimal play.
+	 * @throws IOException If the layer cannot be opened.
+	 */
+	public double value(long state) throws IOException {
+		if (maxExponent(state) >= target)
+			return 1;
+		Layer layer = layer(tileSum(state));
+		return layer.values.get(layer.indexOf(state));
+	}
+
+	/**
+	 * Returns the optimal move for a position.
+	 *
+	 * @param state The packed position.
+	 * @return One of {@link #UP}, {@link #DOWN}, {@link #LEFT} and {@link #RIGHT},
+	 *         or -1 if no move is possible.
+	 * @throws IOException If the layer cannot be opened.
+	 */
+	public int bestMove(long state) throws IOException {
+		Layer layer = layer(tileSum(state));
+		return layer.moves.get(layer.indexOf(state));
+	}
+
+	/**
+	 * Returns the probability of reaching the target from a new game, averaged
+	 * over the possible starting positions.
+	 *
+	 * @return The win probability under optimal play.
+	 * @throws IOException If the first layer cannot be opened.
+	 */
+	public double startValue() throws IOException {
+		long[] starts = startStates();
+		double total = 0;
+		for (long state : starts) {
+			total += value(state);
+		}
+		return total / starts.length;
+	}
+
+	/**
+	 * Packs the board of a game.
+	 *
+	 * @param game The game to pack.
+	 * @return The packed position.
+	 */
+	public static long pack(Game game) {
+		int size = game.getBoardSize();
+		long state = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				int value = game.getTileValue(i, j);
+				long exponent = value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+				state |= exponent << (4 * (i * size + j));
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Applies a move to a packed position without spawning a tile.
+	 *
+	 * @param state     The packed position.
+	 * @param direction The move code.
+	 * @return The packed position after the move, equal to state if the move
+	 *         changes nothing.
+	 */
+	long move(long state, int direction) {
+		long result = 0;
+		for (int[] line : lines[direction]) {
+			int key = 0;
+			for (int p = 0; p < size; p++) {
+				key |= (int) (state >>> (4 * line[p]) & 15) << (4 * p);
+			}
+			int moved = lineMoves[key];
+			for (int p = 0; p < size; p++) {
+				result |= (long) (moved >>> (4 * p) & 15) << (4 * line[p]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Enumerates the layers in increasing order of tile sum until no new
+	 * positions appear, resuming after the last layer recorded as generated.
+	 *
+	 * @throws IOException If a layer cannot be written.
+	 */
+	private void generate() throws IOException {
+		TreeMap<Integer, LongList> pending = new TreeMap<>();
+		int done = Integer.parseInt(progress.getProperty("generated", "0"));
+		if (done == 0) {
+			pending.put(4, LongList.of(startStates()));
+		} else if (progress.getProperty("complete") != null) {
+			return;
+		} else {
+			// Rebuild the successors of the last two layers that were lost with the restart
+			for (int sum = done - 2; sum <= done; sum += 2) {
+				if (Files.exists(statesFile(sum)))
+					expand(layer(sum).states(), sum, pending);
+			}
+			pending.headMap(done, true).clear();
+		}
+
+		while (!pending.isEmpty()) {
+			int sum = pending.firstKey();
+			long[] states = pending.remove(sum).sortedUnique();
+			writeStates(sum, states);
+			expand(states, sum, pending);
+			progress.setProperty("generated", Integer.toString(sum));
+			saveProgress();
+			System.out.println("Generated layer " + sum + ": " + states.length + " positions.");
+		}
+		progress.setProperty("complete", "true");
+		saveProgress();
+	}
+
+	/**
+	 * Adds the successors of a layer to the pending layers, in parallel.
+	 *
+	 * @param states  The positions of the layer.
+	 * @param sum     The tile sum of the layer.
+	 * @param pending The pending layers by tile sum.
+	 */
+	private void expand(long[] states, int sum, TreeMap<Integer, LongList> pending) {
+		int chunks = (states.length + CHUNK - 1) / CHUNK;
+		List<LongList[]> results = parallel(chunks, chunk -> {
+			LongList plus2 = new LongList();
+			LongList plus4 = new LongList();
+			int end = Math.min(states.length, (chunk + 1) * CHUNK);
+			for (int i = chunk * CHUNK; i < end; i++) {
+				for (int d = 0; d < 4; d++) {
+					long after = move(states[i], d);
+					if (after == states[i] || maxExponent(after) >= target)
+						continue;
+					boolean only2 = emptyCells(after) >= cells - 1;
+					for (int c = 0; c < cells; c++) {
+						if ((after >>> (4 * c) & 15) == 0) {
+							plus2.add(after | 1L << (4 * c));
+							if (!only2)
+								plus4.add(after | 2L << (4 * c));
+						}
+					}
+				}
+			}
+			return new LongList[] { LongList.of(plus2.sortedUnique()), LongList.of(plus4.sortedUnique()) };
+		});
+		for (LongList[] result : results) {
+			pending.computeIfAbsent(sum + 2, k -> new LongList()).addAll(result[0]);
+			pending.computeIfAbsent(sum + 4, k -> new LongList()).addAll(result[1]);
+		}
+		pending.values().removeIf(list -> list.size == 0);
+	}
+
+	/**
+	 * Solves the layers in decreasing order of tile sum, resuming after the
+	 * last layer recorded as solved.
+	 *
+	 * @throws IOException If a layer cannot be written.
+	 */
+	private void backup() throws IOException {
+		int highest = Integer.parseInt(progress.getProperty("generated"));
+		int solved = Integer.parseInt(progress.getProperty("solved", Integer.toString(highest + 2)));
+		for (int sum = solved - 2; sum >= 4; sum -= 2) {
+			if (Files.exists(statesFile(sum)))
+				solveLayer(sum);
+			progress.setProperty("solved", Integer.toString(sum));
+			saveProgress();
+		}
+	}
+
+	/**
+	 * Computes the win probability and best move of every position in a layer,
+	 * in parallel. The two following layers must already be solved.
+	 *
+	 * @param sum The tile sum of the layer.
+	 * @throws IOException If the layer cannot be written.
+	 */
+	private void solveLayer(int sum) throws IOException {
+		Layer layer = layer(sum);
+		ByteBuffer values = map(valuesFile(sum), (long) layer.count * Float.BYTES);
+		ByteBuffer moves = map(movesFile(sum), layer.count);
+		FloatBuffer valueView = values.asFloatBuffer();
+		int chunks = (layer.count + CHUNK - 1) / CHUNK;
+		parallel(chunks, chunk -> {
+			int end = Math.min(layer.count, (chunk + 1) * CHUNK);
+			for (int i = chunk * CHUNK; i < end; i++) {
+				long state = layer.states.get(i);
+				int best = -1;
+				double bestValue = 0;
+				for (int d = 0; d < 4; d++) {
+					long after = move(state, d);
+					if (after == state)
+						continue;
+					double value = maxExponent(after) >= target ? 1 : expectation(after, sum);
+					if (best == -1 || value > bestValue) {
+						best = d;
+						bestValue = value;
+					}
+				}
+				valueView.put(i, (float) bestValue);
+				moves.put(i, (byte) best);
+			}
+			return null;
+		});
+		((MappedByteBuffer) values).force();
+		((MappedByteBuffer) moves).force();
+		layers.remove(sum);
+	}
+
+	/**
+	 * Averages the value of a position after a move over the possible spawns,
+	 * with the spawn rules of {@link Board}: a uniformly chosen empty cell gets a
+	 * 2 or a 4 with equal probability, or always a 2 if the board holds a single
+	 * tile.
+	 *
+	 * @param after The packed position after the move.
+	 * @param sum   The tile sum of the position.
+	 * @return The expected win probability.
+	 */
+	private double expectation(long after, int sum) {
+		try {
+			int empty = emptyCells(after);
+			boolean only2 = empty >= cells - 1;
+			Layer plus2 = layer(sum + 2);
+			Layer plus4 = only2 ? null : layer(sum + 4);
+			double total = 0;
+			for (int c = 0; c < cells; c++) {
+				if ((after >>> (4 * c) & 15) == 0) {
+					double value2 = plus2.values.get(plus2.indexOf(after | 1L << (4 * c)));
+					if (only2) {
+						total += value2;
+					} else {
+						total += 0.5 * value2 + 0.5 * plus4.values.get(plus4.indexOf(after | 2L << (4 * c)));
+					}
+				}
+			}
+			return total / empty;
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot open a solved layer", e);
+		}
+	}
+
+	/**
+	 * @return Every starting position: two 2 tiles on distinct cells.
+	 */
+	private long[] startStates() {
+		LongList starts = new LongList();
+		for (int a = 0; a < cells; a++) {
+			for (int b = a + 1; b < cells; b++) {
+				starts.add(1L << (4 * a) | 1L << (4 * b));
+			}
+		}
+		return starts.sortedUnique();
+	}
+
+	private int emptyCells(long state) {
+		int empty = 0;
+		for (int c = 0; c < cells; c++) {
+			if ((state >>> (4 * c) & 15) == 0)
+				empty++;
+		}
+		return empty;
+	}
+
+	private int maxExponent(long state) {
+		int max = 0;
+		for (int c = 0; c < cells; c++) {
+			max = Math.max(max, (int) (state >>> (4 * c) & 15));
+		}
+		return max;
+	}
+
+	private int tileSum(long state) {
+		int sum = 0;
+		for (int c = 0; c < cells; c++) {
+			int exponent = (int) (state >>> (4 * c) & 15);
+			if (exponent != 0)
+				sum += 1 << exponent;
+		}
+		return sum;
+	}
+
+	/**
+	 * Runs a task for every chunk index on the worker pool.
+	 *
+	 * @param chunks The number of chunks.
+	 * @param task   The task, mapping a chunk index to a result.
+	 * @return The results in chunk order.
+	 */
+	private <T> List<T> parallel(int chunks, java.util.function.IntFunction<T> task) {
+		try {
+			return pool.submit(() -> {
+				List<T> results = new ArrayList<>(chunks);
+				IntStream.range(0, chunks).parallel().mapToObj(task).forEachOrdered(results::add);
+				return results;
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Solver task failed", e.getCause());
+		}
+	}
+
+	private Layer layer(int sum) throws IOException {
+		Layer layer = layers.get(sum);
+		if (layer == null) {
+			layer = new Layer(sum);
+			layers.put(sum, layer);
+		}
+		return layer;
+	}
+
+	private void writeStates(int sum, long[] states) throws IOException {
+		ByteBuffer buffer = map(statesFile(sum), (long) states.length * Long.BYTES);
+		buffer.asLongBuffer().put(states);
+		((MappedByteBuffer) buffer).force();
+	}
+
+	private static ByteBuffer map(Path file, long bytes) throws IOException {
+		if (bytes > Integer.MAX_VALUE)
+			throw new IOException("Layer " + file + " exceeds 2 GB.");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+		}
+	}
+
+	private static ByteBuffer mapReadOnly(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private void saveProgress() throws IOException {
+		Path temp = directory.resolve(PROGRESS + ".tmp");
+		try (OutputStream out = Files.newOutputStream(temp)) {
+			progress.store(out, "Retrograde solver progress");
+		}
+		Files.move(temp, directory.resolve(PROGRESS), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Path statesFile(int sum) {
+		return directory.resolve("layer-" + sum + ".states");
+	}
+
+	private Path valuesFile(int sum) {
+		return directory.resolve("layer-" + sum + ".values");
+	}
+
+	private Path movesFile(int sum) {
+		return directory.resolve("layer-" + sum + ".moves");
+	}
+
+	/**
+	 * Builds the cell indices each move reads a line from, ordered from the cell
+	 * tiles slide towards, matching the traversal of {@link Board}'s moves.
+	 */
+	private static int[][][] buildLines(int size) {
+		int[][][] lines = new int[4][size][size];
+		for (int l = 0; l < size; l++) {
+			for (int p = 0; p < size; p++) {
+				lines[UP][l][p] = p * size + l;
+				lines[DOWN][l][p] = (size - 1 - p) * size + l;
+				lines[LEFT][l][p] = l * size + p;
+				lines[RIGHT][l][p] = l * size + size - 1 - p;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Tabulates {@link Board#mergeLine(int[])} for every packed line.
+	 */
+	private static int[] buildLineMoves(int size) {
+		int[] table = new int[1 << (4 * size)];
+		int[] line = new int[size];
+		for (int key = 0; key < table.length; key++) {
+			for (int p = 0; p < size; p++) {
+				int exponent = key >>> (4 * p) & 15;
+				line[p] = exponent == 0 ? 0 : 1 << exponent;
+			}
+			Board.mergeLine(line);
+			int moved = 0;
+			for (int p = 0; p < size; p++) {
+				int exponent = line[p] == 0 ? 0 : Math.min(15, Integer.numberOfTrailingZeros(line[p]));
+				moved |= exponent << (4 * p);
+			}
+			table[key] = moved;
+		}
+		return table;
+	}
+
+	/**
+	 * The memory-mapped files of one layer.
+	 */
+	private final class Layer {
+		final int count; // Number of positions
+		final LongBuffer states; // Sorted packed positions
+		final FloatBuffer values; // Win probabilities, null until solved
+		final ByteBuffer moves; // Best moves, null until solved
+
+		Layer(int sum) throws IOException {
+			states = mapReadOnly(statesFile(sum)).asLongBuffer();
+			count = states.capacity();
+			values = Files.exists(valuesFile(sum)) ? mapReadOnly(valuesFile(sum)).asFloatBuffer() : null;
+			moves = Files.exists(movesFile(sum)) ? mapReadOnly(movesFile(sum)) : null;
+		}
+
+		/**
+		 * Finds a position by binary search.
+		 *
+		 * @param state The packed position.
+		 * @return The index of the position.
+		 * @throws IllegalArgumentException If the position is not in the layer.
+		 */
+		int indexOf(long state) {
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long value = states.get(mid);
+				if (value < state)
+					low = mid + 1;
+				else if (value > state)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			throw new IllegalArgumentException("Position " + Long.toHexString(state) + " is not reachable.");
+		}
+
+		/**
+		 * @return The positions copied to the heap.
+		 */
+		long[] states() {
+			long[] copy = new long[count];
+			states.get(0, copy);
+			return copy;
+		}
+	}
+
+	/**
+	 * A growable array of longs.
+	 */
+	private static final class LongList {
+		long[] values = new long[16];
+		int size;
+
+		static LongList of(long[] values) {
+			LongList list = new LongList();
+			list.values = values;
+			list.size = values.length;
+			return list;
+		}
+
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		void addAll(LongList other) {
+			if (size + other.size > values.length)
+				values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+		}
+
+		long[] sortedUnique() {
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			int unique = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				if (i == 0 || sorted[i] != sorted[i - 1])
+					sorted[unique++] = sorted[i];
+			}
+			return Arrays.copyOf(sorted, unique);
+		}
+	}
+}
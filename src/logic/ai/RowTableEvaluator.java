@@ -0,0 +1,89 @@
+package logic.ai;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import logic.BoardSnapshot;
+
+/**
+ * An evaluator that scores a board as the sum of the scores of its rows and
+ * columns. The score of every possible line, packed with four bits per tile
+ * exponent, is computed once per board size into a table, so evaluating a
+ * board costs one lookup per row and column. Tables are built for boards of
+ * up to {@link #MAX_TABLE_SIZE} cells per line; larger boards are scored
+ * line by line without a table.
+ */
+public abstract class RowTableEvaluator implements Evaluator {
+
+	/** The largest line length that gets a lookup table, 2^20 entries. */
+	public static final int MAX_TABLE_SIZE = 5;
+
+	private final AtomicReferenceArray<float[]> tables = new AtomicReferenceArray<>(MAX_TABLE_SIZE + 1); // By line length
+
+	/**
+	 * Scores one row or column. Lines are read in the direction of increasing
+	 * index; symmetric features must not depend on it.
+	 *
+	 * @param exponents The tile exponents of the line, 0 for empty cells.
+	 * @return The score of the line.
+	 */
+	protected abstract double scoreLine(int[] exponents);
+
+	@Override
+	public double evaluate(BoardSnapshot position) {
+		int size = position.size();
+		if (size > MAX_TABLE_SIZE)
+			return evaluateWithoutTable(position);
+		float[] table = table(size);
+		double value = 0;
+		for (int line = 0; line < size; line++) {
+			value += table[position.packedRow(line)] + table[position.packedColumn(line)];
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the line table for a size, building it on first use. Tables are
+	 * published through an atomic array, so threads sharing the evaluator never
+	 * see a partly filled one.
+	 *
+	 * @param size The line length.
+	 * @return The score of every packed line.
+	 */
+	private float[] table(int size) {
+		float[] table = tables.get(size);
+		if (table != null)
+			return table;
+		synchronized (tables) {
+			if (tables.get(size) == null) {
+				table = new float[1 << (4 * size)];
+				int[] exponents = new int[size];
+				for (int packed = 0; packed < table.length; packed++) {
+					for (int i = 0; i < size; i++) {
+						exponents[i] = (packed >>> (4 * i)) & 0xF;
+					}
+					table[packed] = (float) scoreLine(exponents);
+				}
+				tables.set(size, table);
+			}
+			return tables.get(size);
+		}
+	}
+
+	/**
+	 * Scores a board too large for a table directly.
+	 */
+	private double evaluateWithoutTable(BoardSnapshot position) {
+		int size = position.size();
+		int[] row = new int[size];
+		int[] column = new int[size];
+		double value = 0;
+		for (int line = 0; line < size; line++) {
+			for (int k = 0; k < size; k++) {
+				row[k] = position.exponent(line * size + k);
+				column[k] = position.exponent(k * size + line);
+			}
+			value += scoreLine(row) + scoreLine(column);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,27 @@
+package logic.ai;
+
+/**
+ * Penalises large steps between neighbouring tiles of a line, ignoring empty
+ * cells between them.
+ */
+public class SmoothnessEvaluator extends RowTableEvaluator {
+
+	@Override
+	public String name() {
+		return "smoothness";
+	}
+
+	@Override
+	protected double scoreLine(int[] exponents) {
+		double penalty = 0;
+		int previous = 0;
+		for (int exponent : exponents) {
+			if (exponent == 0)
+				continue;
+			if (previous != 0)
+				penalty += Math.abs(exponent - previous);
+			previous = exponent;
+		}
+		return -penalty;
+	}
+}
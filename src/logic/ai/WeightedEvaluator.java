@@ -0,0 +1,158 @@
+package logic.ai;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+import logic.BoardSnapshot;
+
+/**
+ * A weighted sum of other evaluators. Weights are read from a properties file
+ * mapping evaluator names to weights, for example {@code empty=270}. Row
+ * table components are fused into a single table, so a sum of any number of
+ * them still costs one lookup per row and column.
+ * <p>
+ * The no-argument constructor, used by the service loader, reads the file
+ * named by the system property {@code evaluator.weights} and falls back to
+ * the default weights when it is not set.
+ */
+public class WeightedEvaluator extends RowTableEvaluator {
+
+	private final List<RowTableEvaluator> lineParts = new ArrayList<>(); // Components fused into the table
+	private final List<Double> lineWeights = new ArrayList<>(); // Weights of lineParts
+	private final List<Evaluator> otherParts = new ArrayList<>(); // Components evaluated separately
+	private final List<Double> otherWeights = new ArrayList<>(); // Weights of otherParts
+
+	/**
+	 * Creates an evaluator with the weights configured by the
+	 * {@code evaluator.weights} system property, or the default weights.
+	 *
+	 * @throws IllegalStateException If the configured file cannot be read.
+	 */
+	public WeightedEvaluator() {
+		this(configuredWeights());
+	}
+
+	/**
+	 * Creates an evaluator from evaluators and their weights.
+	 *
+	 * @param weights The weight of each component.
+	 */
+	public WeightedEvaluator(Map<Evaluator, Double> weights) {
+		for (Map.Entry<Evaluator, Double> entry : weights.entrySet()) {
+			if (entry.getKey() instanceof RowTableEvaluator) {
+				lineParts.add((RowTableEvaluator) entry.getKey());
+				lineWeights.add(entry.getValue());
+			} else {
+				otherParts.add(entry.getKey());
+				otherWeights.add(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Creates an evaluator from a weights file.
+	 *
+	 * @param file The properties file mapping evaluator names to weights.
+	 * @return The evaluator.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static WeightedEvaluator fromFile(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader in = Files.newBufferedReader(file)) {
+			properties.load(in);
+		}
+		return new WeightedEvaluator(weights(properties));
+	}
+
+	/**
+	 * Returns the default weights.
+	 *
+	 * @return The weight of each built-in evaluator.
+	 */
+	public static Map<Evaluator, Double> defaultWeights() {
+		Map<Evaluator, Double> weights = new LinkedHashMap<>();
+		weights.put(new EmptyCellsEvaluator(), 270.0);
+		weights.put(new MergePotentialEvaluator(), 700.0);
+		weights.put(new MonotonicityEvaluator(), 47.0);
+		weights.put(new SmoothnessEvaluator(), 11.0);
+		return weights;
+	}
+
+	@Override
+	public String name() {
+		return "weighted";
+	}
+
+	@Override
+	public double evaluate(BoardSnapshot position) {
+		double value = super.evaluate(position);
+		for (int i = 0; i < otherParts.size(); i++) {
+			value += otherWeights.get(i) * otherParts.get(i).evaluate(position);
+		}
+		return value;
+	}
+
+	@Override
+	protected double scoreLine(int[] exponents) {
+		double score = 0;
+		for (int i = 0; i < lineParts.size(); i++) {
+			score += lineWeights.get(i) * lineParts.get(i).scoreLine(exponents);
+		}
+		return score;
+	}
+
+	/**
+	 * Resolves the weights named in a properties object.
+	 */
+	private static Map<Evaluator, Double> weights(Properties properties) {
+		Map<Evaluator, Double> weights = new LinkedHashMap<>();
+		for (String name : properties.stringPropertyNames()) {
+			if (name.equals("weighted"))
+				throw new IllegalArgumentException("A weighted evaluator cannot contain itself.");
+			weights.put(component(name), Double.parseDouble(properties.getProperty(name).trim()));
+		}
+		return weights;
+	}
+
+	/**
+	 * Finds a component by name among the service providers and built-in
+	 * evaluators, without instantiating weighted evaluators.
+	 */
+	private static Evaluator component(String name) {
+		List<Evaluator> candidates = new ArrayList<>();
+		ServiceLoader.load(Evaluator.class).stream()
+				.filter(provider -> !WeightedEvaluator.class.isAssignableFrom(provider.type()))
+				.forEach(provider -> candidates.add(provider.get()));
+		candidates.addAll(defaultWeights().keySet());
+		for (Evaluator candidate : candidates) {
+			if (candidate.name().equals(name))
+				return candidate;
+		}
+		throw new IllegalArgumentException("Unknown evaluator " + name + ".");
+	}
+
+	/**
+	 * Reads the weights file named by {@code evaluator.weights}.
+	 */
+	private static Map<Evaluator, Double> configuredWeights() {
+		String file = System.getProperty("evaluator.weights");
+		if (file == null)
+			return defaultWeights();
+		Properties properties = new Properties();
+		try (Reader in = Files.newBufferedReader(Paths.get(file))) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read the evaluator weights " + file + ".", e);
+		}
+		return weights(properties);
+	}
+}
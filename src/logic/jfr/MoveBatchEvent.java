@@ -0,0 +1,41 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering a batch of consecutive moves on one game.
+ * Moves are batched so that an enabled recording does not emit one event per
+ * key press or simulated move.
+ * <p>
+ * Like the other events in this package it is disabled by default; enable it
+ * in the recording settings, for example
+ * {@code -XX:StartFlightRecording:settings=profile,+logic.MoveBatch#enabled=true}.
+ */
+@Name("logic.MoveBatch")
+@Label("Move Batch")
+@Category({ "2048", "Engine" })
+@Description("A batch of consecutive moves applied to one game")
+@Enabled(false)
+public class MoveBatchEvent extends Event {
+
+	/** The number of moves collected before the event is committed. */
+	public static final int BATCH_SIZE = 64;
+
+	@Label("Board Size")
+	public int boardSize;
+
+	@Label("Moves")
+	public int moves;
+
+	@Label("No-op Moves")
+	@Description("Moves that did not change the board")
+	public int noOpMoves;
+
+	@Label("Score Delta")
+	public int scoreDelta;
+}
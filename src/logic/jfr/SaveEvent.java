@@ -0,0 +1,34 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one saveGame call.
+ */
+@Name("logic.Save")
+@Label("Save Game")
+@Category({ "2048", "Persistence" })
+@Enabled(false)
+public class SaveEvent extends Event {
+
+	@Label("File Name")
+	public String filename;
+
+	@Label("Board Size")
+	public int boardSize;
+
+	@Label("Score")
+	public int score;
+
+	@Label("Bytes Written")
+	@DataAmount
+	public long bytes;
+
+	@Label("Succeeded")
+	public boolean succeeded;
+}
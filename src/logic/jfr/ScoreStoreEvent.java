@@ -0,0 +1,28 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one read or update of the score store.
+ */
+@Name("logic.ScoreStore")
+@Label("Score Store Update")
+@Category({ "2048", "Persistence" })
+@Enabled(false)
+public class ScoreStoreEvent extends Event {
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Score")
+	public int score;
+
+	@Label("Bytes Written")
+	@DataAmount
+	public long bytes;
+}
@@ -0,0 +1,35 @@
+package logic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one AI search for the best move.
+ */
+@Name("logic.Search")
+@Label("AI Search")
+@Category({ "2048", "AI" })
+@Enabled(false)
+public class SearchEvent extends Event {
+
+	@Label("Searcher")
+	public String searcher;
+
+	@Label("Board Size")
+	public int boardSize;
+
+	@Label("Depth")
+	public int depth;
+
+	@Label("Nodes")
+	public long nodes;
+
+	@Label("Best Move")
+	public String bestMove;
+
+	@Label("Cancelled")
+	public boolean cancelled;
+}
@@ -6,4 +6,13 @@
  */
 module RS_2048 {
 	requires java.desktop;
-}
\ No newline at end of file
+	requires java.management;
+	requires jdk.jfr;
+
+	exports logic to java.management;
+	exports server to java.management;
+
+	uses logic.ai.Evaluator;
+	provides logic.ai.Evaluator with logic.ai.EmptyCellsEvaluator, logic.ai.MonotonicityEvaluator,
+			logic.ai.SmoothnessEvaluator, logic.ai.MergePotentialEvaluator, logic.ai.WeightedEvaluator;
+}
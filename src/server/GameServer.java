@@ -0,0 +1,414 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import logic.Game;
+
+/**
+ * Hosts many concurrent games behind a line based TCP protocol. Each request
+ * is one line of space separated words and gets exactly one response line,
+ * starting with {@code OK} or {@code ERR}:
+ *
+ * <pre>
+ * NEW [size]          -&gt; OK id
+ * MOVE id dirs        -&gt; OK changed score over   (dirs is any string of U, D, L, R)
+ * STATE id            -&gt; OK size score tile...
+ * SAVE id name        -&gt; OK, or ERR save failed
+ * LOAD name           -&gt; OK id
+ * CLOSE id            -&gt; OK
+ * QUIT                -&gt; closes the connection
+ * </pre>
+ *
+ * Requests may be pipelined; responses are flushed whenever the connection has
+ * no further buffered input. Sessions left idle for longer than the idle
+ * timeout are hibernated off-heap by a {@link SessionHibernator} and restored
+ * on their next command. Each connection is served by its own virtual
+ * thread when the runtime supports them, and by a pooled platform thread
+ * otherwise.
+ */
+public class GameServer implements AutoCloseable {
+
+	/** The port used when none is given on the command line. */
+	public static final int DEFAULT_PORT = 2048;
+
+	/**
+	 * The idle timeout used when none is given, read from the
+	 * {@code server.idleTimeoutMillis} system property.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = Long.getLong("server.idleTimeoutMillis", 60_000);
+
+	private static final int BACKLOG = 4096; // Pending connections queued by the OS
+
+	private final ServerSocket serverSocket; // Listening socket, bound to loopback
+	private final ExecutorService connections = newConnectionExecutor(); // One task per connection
+	private final SessionRegistry sessions = new SessionRegistry(); // Open games
+	private final Thread acceptor; // Thread accepting new connections
+	private final SessionHibernator hibernator; // Off-heap store for idle sessions, null if disabled
+	private ObjectName hibernatorName; // JMX name of the hibernator, null if not registered
+
+	/**
+	 * Creates a server listening on the loopback interface with the default
+	 * idle timeout. Call {@link #start()} to begin accepting connections.
+	 *
+	 * @param port The port to listen on, or 0 for any free port.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public GameServer(int port) throws IOException {
+		this(port, DEFAULT_IDLE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Creates a server listening on the loopback interface. Call
+	 * {@link #start()} to begin accepting connections.
+	 *
+	 * @param port              The port to listen on, or 0 for any free port.
+	 * @param idleTimeoutMillis The idle time after which a session is hibernated
+	 *                          off-heap, or 0 to keep every session on the heap.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public GameServer(int port, long idleTimeoutMillis) throws IOException {
+		serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+		acceptor = new Thread(this::acceptLoop, "game-server-acceptor");
+		hibernator = idleTimeoutMillis > 0 ? new SessionHibernator(sessions, idleTimeoutMillis) : null;
+		if (hibernator != null) {
+			try {
+				hibernatorName = new ObjectName("server:type=SessionHibernator,port=" + getPort());
+				ManagementFactory.getPlatformMBeanServer().registerMBean(hibernator, hibernatorName);
+			} catch (JMException e) {
+				hibernatorName = null;
+				System.out.println("Warning: session hibernation metrics are not available over JMX.");
+			}
+		}
+	}
+
+	/**
+	 * Starts the server on the port given as the first argument, or on
+	 * {@link #DEFAULT_PORT}.
+	 *
+	 * @param args Command line arguments: an optional port number and an
+	 *             optional idle timeout in milliseconds.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		long idleTimeout = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_IDLE_TIMEOUT_MILLIS;
+		GameServer server = new GameServer(port, idleTimeout);
+		server.start();
+		System.out.println("Game server listening on port " + server.getPort() + ".");
+	}
+
+	/**
+	 * Starts accepting connections in the background.
+	 */
+	public void start() {
+		acceptor.start();
+	}
+
+	/**
+	 * @return The port the server listens on.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return The number of open game sessions.
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * @return The hibernation counters, or null if hibernation is disabled.
+	 */
+	public SessionHibernatorMBean getHibernationMetrics() {
+		return hibernator;
+	}
+
+	/**
+	 * Stops accepting connections and closes the open ones. Sessions are
+	 * discarded.
+	 */
+	@Override
+	public void close() {
+		if (hibernator != null)
+			hibernator.shutdown();
+		if (hibernatorName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(hibernatorName);
+			} catch (JMException e) {
+				e.printStackTrace();
+			}
+		}
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		connections.shutdownNow();
+		try {
+			connections.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Executes a single protocol request. This is what connections call for
+	 * each line they receive, and it can be used directly to drive the server
+	 * in-process.
+	 *
+	 * @param request The request line.
+	 * @return The response line, without a line terminator.
+	 */
+	public String execute(String request) {
+		String[] words = request.trim().split(" +");
+		try {
+			switch (words[0].toUpperCase()) {
+			case "NEW":
+				int size = words.length > 1 ? Integer.parseInt(words[1]) : 4;
+				if (size != 4 && size != 5)
+					return "ERR board size must be 4 or 5";
+				return "OK " + sessions.create(new Game(size)).id;
+			case "MOVE":
+				return move(session(words), words.length > 2 ? words[2] : "");
+			case "STATE":
+				return state(session(words));
+			case "SAVE":
+				return save(session(words), words.length > 2 ? words[2] : "");
+			case "LOAD":
+				return load(words.length > 1 ? words[1] : "");
+			case "CLOSE":
+				return close(sessions.remove(sessionId(words)));
+			default:
+				return "ERR unknown command " + words[0];
+			}
+		} catch (NumberFormatException e) {
+			return "ERR malformed number";
+		} catch (IllegalArgumentException e) {
+			return "ERR " + e.getMessage();
+		}
+	}
+
+	/**
+	 * Applies a sequence of moves to a session, stopping early if the game
+	 * ends. The whole sequence is checked first, so a malformed request moves
+	 * nothing. The final score is recorded once when the game is over.
+	 *
+	 * @param session    The session to move.
+	 * @param directions The moves as U, D, L and R characters.
+	 * @return The response line.
+	 */
+	private String move(Session session, String directions) {
+		for (int i = 0; i < directions.length(); i++) {
+			if ("UDLR".indexOf(Character.toUpperCase(directions.charAt(i))) < 0)
+				return "ERR unknown direction " + directions.charAt(i);
+		}
+		synchronized (session) {
+			if (session.closed)
+				return "ERR unknown session";
+			Game game = session.game();
+			boolean changed = false;
+			boolean over = session.finished;
+			for (int i = 0; i < directions.length() && !over; i++) {
+				switch (Character.toUpperCase(directions.charAt(i))) {
+				case 'U':
+					changed |= game.moveUp();
+					break;
+				case 'D':
+					changed |= game.moveDown();
+					break;
+				case 'L':
+					changed |= game.moveLeft();
+					break;
+				case 'R':
+					changed |= game.moveRight();
+					break;
+				}
+				over = game.isGameOver(true);
+			}
+			if (over && !session.finished) {
+				session.finished = true;
+				Game.saveScore(game.getScore());
+			}
+			return "OK " + (changed ? 1 : 0) + " " + game.getScore() + " " + (over ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Describes the board of a session.
+	 *
+	 * @param session The session to describe.
+	 * @return The response line.
+	 */
+	private String state(Session session) {
+		synchronized (session) {
+			if (session.closed)
+				return "ERR unknown session";
+			Game game = session.game();
+			int size = game.getBoardSize();
+			StringBuilder response = new StringBuilder(8 + size * size * 5);
+			response.append("OK ").append(size).append(' ').append(game.getScore());
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					response.append(' ').append(game.getTileValue(i, j));
+				}
+			}
+			return response.toString();
+		}
+	}
+
+	/**
+	 * Saves the game of a session under the given name.
+	 *
+	 * @param session The session to save.
+	 * @param name    The save name; letters, digits, '-' and '_' only.
+	 * @return The response line.
+	 */
+	private String save(Session session, String name) {
+		if (!name.matches("[A-Za-z0-9_-]+"))
+			return "ERR invalid save name";
+		synchronized (session) {
+			if (session.closed)
+				return "ERR unknown session";
+			if (!session.game().saveGame(name))
+				return "ERR save failed";
+		}
+		return "OK";
+	}
+
+	/**
+	 * Closes a session removed from the registry.
+	 *
+	 * @param session The removed session, or null if there was none.
+	 * @return The response line.
+	 */
+	private String close(Session session) {
+		if (session == null)
+			return "ERR unknown session";
+		synchronized (session) {
+			session.discard();
+		}
+		return "OK";
+	}
+
+	/**
+	 * Opens a new session from a saved game.
+	 *
+	 * @param name The save name; letters, digits, '-' and '_' only.
+	 * @return The response line.
+	 */
+	private String load(String name) {
+		if (!name.matches("[A-Za-z0-9_-]+"))
+			return "ERR invalid save name";
+		Game game = new Game(name);
+		if (game.getLoadedSize() == 0)
+			return "ERR cannot load " + name;
+		return "OK " + sessions.create(game).id;
+	}
+
+	/**
+	 * Resolves the session named by the second word of a request.
+	 *
+	 * @param words The request words.
+	 * @return The session.
+	 * @throws IllegalArgumentException If the session does not exist.
+	 */
+	private Session session(String[] words) {
+		Session session = sessions.get(sessionId(words));
+		if (session == null)
+			throw new IllegalArgumentException("unknown session");
+		return session;
+	}
+
+	/**
+	 * Parses the session identifier in the second word of a request.
+	 *
+	 * @param words The request words.
+	 * @return The session identifier.
+	 * @throws IllegalArgumentException If the identifier is missing.
+	 */
+	private static long sessionId(String[] words) {
+		if (words.length < 2)
+			throw new IllegalArgumentException("missing session id");
+		return Long.parseLong(words[1]);
+	}
+
+	/**
+	 * Accepts connections until the server socket is closed.
+	 */
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.execute(() -> serve(socket));
+			} catch (SocketException e) {
+				// Server socket closed
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Serves the requests of one connection until the client quits or
+	 * disconnects.
+	 *
+	 * @param socket The client connection.
+	 */
+	private void serve(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+			socket.setTcpNoDelay(true);
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().equalsIgnoreCase("QUIT"))
+					break;
+				out.write(execute(line));
+				out.write('\n');
+				if (!in.ready())
+					out.flush();
+			}
+		} catch (IOException e) {
+			// Client disconnected
+		}
+	}
+
+	/**
+	 * Creates the executor running connections: one virtual thread per task when
+	 * the runtime provides them, and a cached pool of daemon threads otherwise.
+	 *
+	 * @return The connection executor.
+	 */
+	static ExecutorService newConnectionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "game-server-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
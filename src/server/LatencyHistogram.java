@@ -0,0 +1,101 @@
+package server;
+
+/**
+ * Records latencies in log-linear buckets: every power of two is split into
+ * sixteen buckets, so recorded values keep about 6% precision from
+ * nanoseconds up to hours in under a thousand counters. Not thread-safe; give
+ * each recording thread its own histogram and {@link #add(LatencyHistogram)}
+ * them afterwards.
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BITS = 4; // log2 of the buckets per power of two
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count; // Number of recorded values
+	private long sum; // Sum of recorded values
+	private long max; // Largest recorded value
+
+	/**
+	 * Records one value.
+	 *
+	 * @param nanos The latency in nanoseconds.
+	 */
+	void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts[bucket(value)]++;
+		count++;
+		sum += value;
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds all values recorded by another histogram to this one.
+	 *
+	 * @param other The histogram to merge.
+	 */
+	void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @return The number of recorded values.
+	 */
+	long count() {
+		return count;
+	}
+
+	/**
+	 * @return The mean of the recorded values, or zero if there are none.
+	 */
+	double mean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @return The largest recorded value.
+	 */
+	long max() {
+		return max;
+	}
+
+	/**
+	 * Returns an upper bound of the value below which the given fraction of the
+	 * recorded values fall.
+	 *
+	 * @param fraction The percentile as a fraction, for example 0.99.
+	 * @return The percentile value, or zero if nothing was recorded.
+	 */
+	long percentile(double fraction) {
+		long rank = (long) Math.ceil(fraction * count);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0)
+				return Math.min(max, upperBound(i));
+		}
+		return max;
+	}
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		return (msb - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int msb = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (msb - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,358 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates many concurrent players to size a deployment of the game server.
+ * Load is ramped in steps: each step runs a fixed number of clients for a fixed
+ * time, every client moving at a configured rate and periodically saving and
+ * reloading its game. Throughput and latency percentiles per operation are
+ * written to a JSON report so runs can be compared across engine versions.
+ * <p>
+ * Clients either call {@link GameServer#execute(String)} in-process or connect
+ * to a server over loopback. Saves are written below the working directory, so
+ * run it from a scratch directory.
+ */
+public class LoadGenerator {
+
+	/** The command line options. */
+	static final String USAGE = "Usage: [--target inprocess|loopback] [--port n] [--clients n,n,...] [--rate n]"
+			+ " [--save-every n] [--step-seconds n] [--label name] [--report file]";
+	private static final String[] OPERATIONS = { "move", "save", "load" };
+	private static final int MOVE = 0, SAVE = 1, LOAD = 2;
+
+	private final GameServer server; // In-process server, null when load goes over loopback
+	private final int port; // Loopback port, used when server is null
+	private final double rate; // Moves per second per client, 0 for as fast as possible
+	private final int saveEvery; // Moves between save and load pairs, 0 to disable
+	private final long stepNanos; // Duration of one load step
+
+	/**
+	 * Creates a load generator.
+	 *
+	 * @param server      The in-process server, or null to connect over loopback.
+	 * @param port        The loopback port when server is null.
+	 * @param rate        Moves per second per client, 0 for unthrottled clients.
+	 * @param saveEvery   Moves between save and load pairs, 0 to disable them.
+	 * @param stepSeconds Duration of each load step.
+	 */
+	public LoadGenerator(GameServer server, int port, double rate, int saveEvery, int stepSeconds) {
+		this.server = server;
+		this.port = port;
+		this.rate = rate;
+		this.saveEvery = saveEvery;
+		this.stepNanos = TimeUnit.SECONDS.toNanos(stepSeconds);
+	}
+
+	/**
+	 * Runs a load test. Options are {@code --target inprocess|loopback},
+	 * {@code --port n} (connect to an already running server),
+	 * {@code --clients 100,1000,...}, {@code --rate movesPerSecond},
+	 * {@code --save-every moves}, {@code --step-seconds n},
+	 * {@code --label name} and {@code --report file}.
+	 *
+	 * @param args The command line options.
+	 * @throws Exception If the server cannot be started or the report written.
+	 */
+	public static void main(String[] args) throws Exception {
+		String target = "inprocess";
+		int port = 0;
+		String clients = "100,1000";
+		double rate = 20;
+		int saveEvery = 200;
+		int stepSeconds = 10;
+		String label = "engine";
+		String report = "load-report.json";
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--target":
+				target = args[++i];
+				break;
+			case "--port":
+				port = Integer.parseInt(args[++i]);
+				break;
+			case "--clients":
+				clients = args[++i];
+				break;
+			case "--rate":
+				rate = Double.parseDouble(args[++i]);
+				break;
+			case "--save-every":
+				saveEvery = Integer.parseInt(args[++i]);
+				break;
+			case "--step-seconds":
+				stepSeconds = Integer.parseInt(args[++i]);
+				break;
+			case "--label":
+				label = args[++i];
+				break;
+			case "--report":
+				report = args[++i];
+				break;
+			default:
+				System.err.println("Error: Unknown option " + args[i] + ". " + USAGE);
+				return;
+			}
+		}
+		if (!target.equals("inprocess") && !target.equals("loopback")) {
+			System.err.println("Error: Unknown target " + target + ". " + USAGE);
+			return;
+		}
+
+		new File("savedGames").mkdirs();
+		boolean loopback = target.equals("loopback");
+		GameServer server = !loopback || port == 0 ? new GameServer(0) : null;
+		try {
+			LoadGenerator generator;
+			if (loopback) {
+				if (server != null)
+					server.start();
+				generator = new LoadGenerator(null, server != null ? server.getPort() : port, rate, saveEvery,
+						stepSeconds);
+			} else {
+				generator = new LoadGenerator(server, 0, rate, saveEvery, stepSeconds);
+			}
+
+			List<String> steps = new ArrayList<>();
+			for (String step : clients.split(",")) {
+				int count = Integer.parseInt(step.trim());
+				StepResult result = generator.runStep(count);
+				System.out.println(result.summary());
+				steps.add(result.toJson());
+			}
+			writeReport(report, label, target, rate, steps);
+		} finally {
+			if (server != null)
+				server.close();
+		}
+	}
+
+	/**
+	 * Runs one load step with the given number of concurrent clients.
+	 *
+	 * @param clients The number of clients.
+	 * @return The merged results of all clients.
+	 * @throws Exception If a client fails.
+	 */
+	public StepResult runStep(int clients) throws Exception {
+		ExecutorService executor = GameServer.newConnectionExecutor();
+		long start = System.nanoTime();
+		long deadline = start + stepNanos;
+		List<Future<LatencyHistogram[]>> futures = new ArrayList<>(clients);
+		for (int i = 0; i < clients; i++) {
+			int client = i;
+			futures.add(executor.submit(() -> runClient(client, deadline)));
+		}
+
+		StepResult result = new StepResult(clients);
+		for (Future<LatencyHistogram[]> future : futures) {
+			LatencyHistogram[] histograms = future.get();
+			for (int op = 0; op < OPERATIONS.length; op++) {
+				result.histograms[op].add(histograms[op]);
+			}
+		}
+		result.nanos = System.nanoTime() - start;
+		executor.shutdown();
+		return result;
+	}
+
+	/**
+	 * Plays one simulated client until the deadline.
+	 *
+	 * @param client   The client number, used to name its saves.
+	 * @param deadline The {@link System#nanoTime()} at which to stop.
+	 * @return The latency histograms of the client, indexed by operation.
+	 * @throws IOException If the loopback connection fails.
+	 */
+	private LatencyHistogram[] runClient(int client, long deadline) throws IOException {
+		LatencyHistogram[] histograms = { new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram() };
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long interval = rate > 0 ? (long) (1e9 / rate) : 0;
+		String saveName = "load-" + client;
+
+		try (Connection connection = server != null ? new Connection(server) : new Connection(port)) {
+			String id = connection.call("NEW 4").substring(3);
+			long next = System.nanoTime() + (interval > 0 ? random.nextLong(interval) : 0);
+			int moves = 0;
+			while (System.nanoTime() < deadline) {
+				if (interval > 0) {
+					LockSupport.parkNanos(next - System.nanoTime());
+					next += interval;
+				}
+				long start = System.nanoTime();
+				String response = connection.call("MOVE " + id + " " + "UDLR".charAt(random.nextInt(4)));
+				histograms[MOVE].record(System.nanoTime() - start);
+				moves++;
+
+				if (response.endsWith(" 1")) { // Game over, start another one
+					connection.call("CLOSE " + id);
+					id = connection.call("NEW 4").substring(3);
+				} else if (saveEvery > 0 && moves % saveEvery == 0) {
+					start = System.nanoTime();
+					connection.call("SAVE " + id + " " + saveName);
+					histograms[SAVE].record(System.nanoTime() - start);
+
+					start = System.nanoTime();
+					String loaded = connection.call("LOAD " + saveName);
+					histograms[LOAD].record(System.nanoTime() - start);
+					if (loaded.startsWith("OK")) {
+						connection.call("CLOSE " + id);
+						id = loaded.substring(3);
+					}
+				}
+			}
+			connection.call("CLOSE " + id);
+		}
+		return histograms;
+	}
+
+	/**
+	 * Writes the JSON report of a run.
+	 *
+	 * @param filename The report file.
+	 * @param label    The label identifying the engine version under test.
+	 * @param target   The target the load was applied to.
+	 * @param rate     The per client move rate.
+	 * @param steps    The JSON objects of the steps.
+	 * @throws IOException If the report cannot be written.
+	 */
+	private static void writeReport(String filename, String label, String target, double rate, List<String> steps)
+			throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+			writer.write("{\"label\":" + jsonString(label) + ",\"target\":" + jsonString(target)
+					+ ",\"ratePerClient\":" + rate + ",\"steps\":[\n");
+			writer.write(String.join(",\n", steps));
+			writer.write("\n]}\n");
+		}
+		System.out.println("Report written to " + filename + ".");
+	}
+
+	/**
+	 * Quotes a string as a JSON string literal.
+	 *
+	 * @param value The string.
+	 * @return The quoted and escaped string.
+	 */
+	private static String jsonString(String value) {
+		StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if (c < 0x20)
+				json.append(String.format("\\u%04x", (int) c));
+			else
+				json.append(c);
+		}
+		return json.append('"').toString();
+	}
+
+	/**
+	 * Issues protocol requests either in-process or over a loopback socket.
+	 */
+	private static class Connection implements Closeable {
+
+		private final GameServer server; // In-process server, or null
+		private final Socket socket; // Loopback connection, or null
+		private final BufferedReader in;
+		private final Writer out;
+
+		Connection(GameServer server) {
+			this.server = server;
+			this.socket = null;
+			this.in = null;
+			this.out = null;
+		}
+
+		Connection(int port) throws IOException {
+			this.server = null;
+			this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			socket.setTcpNoDelay(true);
+			this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+		}
+
+		String call(String request) throws IOException {
+			if (server != null)
+				return server.execute(request);
+			out.write(request);
+			out.write('\n');
+			out.flush();
+			String response = in.readLine();
+			if (response == null)
+				throw new IOException("Server closed the connection");
+			return response;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (socket != null)
+				socket.close();
+		}
+	}
+
+	/**
+	 * The merged measurements of one load step.
+	 */
+	public static class StepResult {
+
+		private final int clients; // Concurrent clients in the step
+		private final LatencyHistogram[] histograms = { new LatencyHistogram(), new LatencyHistogram(),
+				new LatencyHistogram() };
+		private long nanos; // Wall clock duration of the step
+
+		StepResult(int clients) {
+			this.clients = clients;
+		}
+
+		/**
+		 * @return A one line human readable summary.
+		 */
+		public String summary() {
+			LatencyHistogram moves = histograms[MOVE];
+			return String.format("%d clients: %.0f moves/s, move p50 %.1f us, p99 %.1f us, max %.1f us", clients,
+					moves.count() * 1e9 / nanos, moves.percentile(0.5) / 1e3, moves.percentile(0.99) / 1e3,
+					moves.max() / 1e3);
+		}
+
+		/**
+		 * @return The step as a JSON object, latencies in microseconds.
+		 */
+		public String toJson() {
+			StringBuilder json = new StringBuilder();
+			json.append("{\"clients\":").append(clients).append(",\"seconds\":").append(nanos / 1e9);
+			for (int op = 0; op < OPERATIONS.length; op++) {
+				LatencyHistogram h = histograms[op];
+				json.append(",\"").append(OPERATIONS[op]).append("\":{");
+				json.append("\"count\":").append(h.count());
+				json.append(",\"perSecond\":").append(h.count() * 1e9 / nanos);
+				json.append(",\"meanMicros\":").append(h.mean() / 1e3);
+				json.append(",\"p50Micros\":").append(h.percentile(0.5) / 1e3);
+				json.append(",\"p90Micros\":").append(h.percentile(0.9) / 1e3);
+				json.append(",\"p99Micros\":").append(h.percentile(0.99) / 1e3);
+				json.append(",\"p999Micros\":").append(h.percentile(0.999) / 1e3);
+				json.append(",\"maxMicros\":").append(h.max() / 1e3);
+				json.append('}');
+			}
+			return json.append('}').toString();
+		}
+	}
+}
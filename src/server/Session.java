@@ -0,0 +1,80 @@
+package server;
+
+import logic.Game;
+
+/**
+ * A game hosted by the server. Commands for one session may arrive from
+ * several connections, so every access to the game goes through the
+ * session's monitor. While idle the game may be hibernated off-heap by a
+ * {@link SessionHibernator}; it is restored transparently on the next access.
+ */
+class Session {
+
+	final long id; // Identifier handed out to clients
+	private Game game; // The hosted game, null while hibernated
+	private SessionHibernator hibernator; // Holder of the hibernated game, null while on heap
+	private int slot; // Off-heap slot of the hibernated game
+	private volatile long lastAccess = System.nanoTime(); // Time of the last command
+	boolean finished; // Whether the game has ended and its score was recorded
+	boolean closed; // Whether the session has been closed by a client
+
+	/**
+	 * Creates a session hosting the given game.
+	 *
+	 * @param id   The session identifier.
+	 * @param game The game to host.
+	 */
+	Session(long id, Game game) {
+		this.id = id;
+		this.game = game;
+	}
+
+	/**
+	 * Returns the hosted game, restoring it if it was hibernated, and marks the
+	 * session as used. Callers must hold the session's monitor while they use
+	 * the game.
+	 *
+	 * @return The hosted game.
+	 */
+	Game game() {
+		lastAccess = System.nanoTime();
+		if (game == null) {
+			game = hibernator.restore(slot);
+			hibernator = null;
+		}
+		return game;
+	}
+
+	/**
+	 * Moves the game off-heap. A closed session is left alone, since nothing
+	 * would release its slot. Callers must hold the session's monitor.
+	 *
+	 * @param hibernator The hibernator to store the game in.
+	 */
+	void hibernate(SessionHibernator hibernator) {
+		if (game != null && !closed) {
+			slot = hibernator.store(game);
+			this.hibernator = hibernator;
+			game = null;
+		}
+	}
+
+	/**
+	 * Marks the session closed and releases its off-heap slot. Callers must hold
+	 * the session's monitor.
+	 */
+	void discard() {
+		closed = true;
+		if (game == null && hibernator != null) {
+			hibernator.release(slot);
+			hibernator = null;
+		}
+	}
+
+	/**
+	 * @return The {@link System#nanoTime()} of the last command.
+	 */
+	long lastAccess() {
+		return lastAccess;
+	}
+}
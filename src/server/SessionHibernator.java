@@ -0,0 +1,163 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import logic.Game;
+
+/**
+ * Moves idle sessions out of the heap. A background sweep writes the game of
+ * every session that has not been used for the idle timeout into a fixed size
+ * slot of a direct buffer arena and drops the heap object; the session restores
+ * it from the slot on its next command. A hibernated session costs one slot of
+ * {@value #SLOT_BYTES} bytes off-heap instead of a Board and its tile arrays.
+ */
+class SessionHibernator implements SessionHibernatorMBean {
+
+	static final int SLOT_BYTES = Game.COMPACT_MAX_BYTES + 7 & ~7; // Bytes per hibernated game, 8-byte aligned
+	private static final int SLOTS_PER_CHUNK = 1 << 16; // Slots per direct buffer, 5 MB each
+
+	private final long idleTimeoutNanos; // Idle time before a session is hibernated
+	private final SessionRegistry sessions; // Sessions swept for idleness
+	private final ScheduledExecutorService sweeper; // Runs the periodic sweep
+	private final List<ByteBuffer> chunks = new ArrayList<>(); // Arena chunks, guarded by this
+	private int[] freeSlots = new int[SLOTS_PER_CHUNK]; // Stack of released slots, guarded by this
+	private int freeCount; // Entries on the free slot stack, guarded by this
+	private int nextSlot; // First never used slot, guarded by this
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rehydrations = new LongAdder();
+
+	/**
+	 * Creates a hibernator and starts sweeping the given sessions.
+	 *
+	 * @param sessions          The sessions to sweep.
+	 * @param idleTimeoutMillis The idle time after which a session is hibernated.
+	 */
+	SessionHibernator(SessionRegistry sessions, long idleTimeoutMillis) {
+		this.sessions = sessions;
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "session-hibernator");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, idleTimeoutMillis / 4);
+		sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops sweeping. Hibernated sessions can still be restored.
+	 */
+	void shutdown() {
+		sweeper.shutdownNow();
+	}
+
+	/**
+	 * Hibernates every session idle for longer than the timeout. A session
+	 * that cannot be hibernated is reported and stays on the heap, so one bad
+	 * game never ends the periodic sweep.
+	 */
+	void sweep() {
+		long now = System.nanoTime();
+		sessions.forEach(session -> {
+			if (now - session.lastAccess() > idleTimeoutNanos) {
+				synchronized (session) {
+					try {
+						if (!session.closed && now - session.lastAccess() > idleTimeoutNanos)
+							session.hibernate(this);
+					} catch (RuntimeException e) {
+						System.err.println("Error: Failed to hibernate session " + session.id + ": " + e);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes a game into a free slot.
+	 *
+	 * @param game The game to store.
+	 * @return The slot holding the game.
+	 */
+	int store(Game game) {
+		int slot = allocate();
+		try {
+			game.writeCompact(slice(slot));
+		} catch (RuntimeException e) {
+			release(slot);
+			throw e;
+		}
+		evictions.increment();
+		return slot;
+	}
+
+	/**
+	 * Restores a game from its slot and releases the slot.
+	 *
+	 * @param slot The slot holding the game.
+	 * @return The restored game.
+	 */
+	Game restore(int slot) {
+		Game game = Game.readCompact(slice(slot));
+		release(slot);
+		rehydrations.increment();
+		return game;
+	}
+
+	/**
+	 * Returns a slot to the free list without reading it.
+	 *
+	 * @param slot The slot to release.
+	 */
+	synchronized void release(int slot) {
+		if (freeCount == freeSlots.length) {
+			int[] grown = new int[freeSlots.length * 2];
+			System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+			freeSlots = grown;
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	private synchronized int allocate() {
+		if (freeCount > 0)
+			return freeSlots[--freeCount];
+		if (nextSlot == chunks.size() * SLOTS_PER_CHUNK)
+			chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_BYTES));
+		return nextSlot++;
+	}
+
+	private synchronized ByteBuffer slice(int slot) {
+		ByteBuffer chunk = chunks.get(slot / SLOTS_PER_CHUNK);
+		return chunk.slice((slot % SLOTS_PER_CHUNK) * SLOT_BYTES, SLOT_BYTES);
+	}
+
+	@Override
+	public long getIdleTimeoutMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos);
+	}
+
+	@Override
+	public synchronized int getHibernatedSessions() {
+		return nextSlot - freeCount;
+	}
+
+	@Override
+	public synchronized long getOffHeapBytes() {
+		return (long) chunks.size() * SLOTS_PER_CHUNK * SLOT_BYTES;
+	}
+
+	@Override
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public long getRehydrations() {
+		return rehydrations.sum();
+	}
+}
@@ -0,0 +1,34 @@
+package server;
+
+/**
+ * Management interface of a {@link SessionHibernator}, registered under
+ * {@code server:type=SessionHibernator,port=<port>}.
+ */
+public interface SessionHibernatorMBean {
+
+	/**
+	 * @return The idle time after which a session is hibernated, in
+	 *         milliseconds.
+	 */
+	long getIdleTimeoutMillis();
+
+	/**
+	 * @return The number of sessions currently hibernated off-heap.
+	 */
+	int getHibernatedSessions();
+
+	/**
+	 * @return The number of off-heap bytes reserved for hibernated sessions.
+	 */
+	long getOffHeapBytes();
+
+	/**
+	 * @return The number of times a session has been hibernated.
+	 */
+	long getEvictions();
+
+	/**
+	 * @return The number of times a hibernated session has been restored.
+	 */
+	long getRehydrations();
+}
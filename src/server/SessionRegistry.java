@@ -0,0 +1,66 @@
+package server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import logic.Game;
+
+/**
+ * Holds the sessions of a server in one concurrent table, which creating and
+ * closing sessions from many connections can update without contending on a
+ * lock.
+ */
+class SessionRegistry {
+
+	private final AtomicLong nextId = new AtomicLong(1); // Next session identifier
+	private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>(); // Open sessions by identifier
+
+	/**
+	 * Registers a new session for the given game.
+	 *
+	 * @param game The game to host.
+	 * @return The new session.
+	 */
+	Session create(Game game) {
+		Session session = new Session(nextId.getAndIncrement(), game);
+		sessions.put(session.id, session);
+		return session;
+	}
+
+	/**
+	 * Looks up a session.
+	 *
+	 * @param id The session identifier.
+	 * @return The session, or null if there is none with that identifier.
+	 */
+	Session get(long id) {
+		return sessions.get(id);
+	}
+
+	/**
+	 * Removes a session.
+	 *
+	 * @param id The session identifier.
+	 * @return The removed session, or null if there was none.
+	 */
+	Session remove(long id) {
+		return sessions.remove(id);
+	}
+
+	/**
+	 * @return The number of open sessions.
+	 */
+	int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Visits every open session.
+	 *
+	 * @param action The action to apply to each session.
+	 */
+	void forEach(Consumer<Session> action) {
+		sessions.values().forEach(action);
+	}
+}
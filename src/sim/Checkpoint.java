@@ -0,0 +1,333 @@
+package sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import logic.BoardSnapshot;
+
+/**
+ * Everything needed to continue a simulation run where it stopped: the run's
+ * configuration, thread count and evaluator weights, the index of the next game to start,
+ * the aggregated statistics, the state of the results writer and every game
+ * that was being played, with the states of its random streams. A checkpoint
+ * is immutable once created, so it can be written by a background thread
+ * while the simulation goes on.
+ * <p>
+ * Checkpoints are written to a temporary file that then atomically replaces
+ * the previous one, so a crash while writing leaves the last complete
+ * checkpoint in place.
+ */
+public final class Checkpoint {
+
+	/** Identifies checkpoint files, "2048CKP1" in ASCII. */
+	static final long MAGIC = 0x32303438434B5031L;
+	/**
+	 * The file format version; version 1 lacks the thread count and versions 1
+	 * and 2 store the weights with writeUTF, which is limited to 64 KB.
+	 */
+	static final int VERSION = 3;
+
+	private final String strategy; // Strategy specification
+	private final int size; // Board size
+	private final long seed; // Seed of the first game
+	private final long games; // Games in the run
+	private final int threads; // Simulation threads, 0 when unknown
+	private final String out; // Results file
+	private final String evaluator; // Value of ai.evaluator, empty when unset
+	private final String weights; // Contents of the evaluator.weights file, empty when unset
+	private final long next; // Index of the next game to start
+	private final long completed; // Games finished
+	private final long scoreSum; // Sum of the finished games' scores
+	private final long moveSum; // Sum of the finished games' moves
+	private final ResultsWriter.State results; // State of the results file
+	private final List<InFlight> inFlight; // Games being played
+
+	/**
+	 * A game being played when the checkpoint was taken.
+	 */
+	public static final class InFlight {
+		final long seed; // Seed of the game
+		final BoardSnapshot position; // Position reached
+		final int moves; // Moves made
+		final long elapsedNanos; // Time spent playing so far
+		final long spawnState; // State of the game's spawn stream
+		final long strategyState; // State of the strategy's stream
+
+		InFlight(long seed, BoardSnapshot position, int moves, long elapsedNanos, long spawnState,
+				long strategyState) {
+			this.seed = seed;
+			this.position = position;
+			this.moves = moves;
+			this.elapsedNanos = elapsedNanos;
+			this.spawnState = spawnState;
+			this.strategyState = strategyState;
+		}
+	}
+
+	Checkpoint(String strategy, int size, long seed, long games, int threads, String out, String evaluator,
+			String weights, long next, long completed, long scoreSum, long moveSum, ResultsWriter.State results,
+			List<InFlight> inFlight) {
+		this.strategy = strategy;
+		this.size = size;
+		this.seed = seed;
+		this.games = games;
+		this.threads = threads;
+		this.out = out;
+		this.evaluator = evaluator;
+		this.weights = weights;
+		this.next = next;
+		this.completed = completed;
+		this.scoreSum = scoreSum;
+		this.moveSum = moveSum;
+		this.results = results;
+		this.inFlight = Collections.unmodifiableList(new ArrayList<>(inFlight));
+	}
+
+	/**
+	 * @return The strategy specification, as accepted by
+	 *         {@link Strategy#parse(String)}.
+	 */
+	public String getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * @return The board size.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The seed of the first game.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The number of games in the run.
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * @return The number of simulation threads, 0 for checkpoints written
+	 *         before it was recorded.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return The results file.
+	 */
+	public String getOut() {
+		return out;
+	}
+
+	/**
+	 * @return The evaluator name, empty when the default was used.
+	 */
+	public String getEvaluator() {
+		return evaluator;
+	}
+
+	/**
+	 * @return The evaluator weights file's contents, empty when the default
+	 *         weights were used.
+	 */
+	public String getWeights() {
+		return weights;
+	}
+
+	/**
+	 * @return The index of the next game to start.
+	 */
+	public long getNext() {
+		return next;
+	}
+
+	/**
+	 * @return The number of finished games.
+	 */
+	public long getCompleted() {
+		return completed;
+	}
+
+	/**
+	 * @return The sum of the finished games' scores.
+	 */
+	public long getScoreSum() {
+		return scoreSum;
+	}
+
+	/**
+	 * @return The sum of the finished games' moves.
+	 */
+	public long getMoveSum() {
+		return moveSum;
+	}
+
+	/**
+	 * @return The state of the results file.
+	 */
+	public ResultsWriter.State getResults() {
+		return results;
+	}
+
+	/**
+	 * @return The games being played, in no particular order.
+	 */
+	public List<InFlight> getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Writes the checkpoint next to the given file and then atomically
+	 * replaces the file with it.
+	 *
+	 * @param file The checkpoint file.
+	 * @throws IOException If writing fails; the previous checkpoint is kept.
+	 */
+	public void write(Path file) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			data.writeLong(MAGIC);
+			data.writeInt(VERSION);
+			data.writeUTF(strategy);
+			data.writeInt(size);
+			data.writeLong(seed);
+			data.writeLong(games);
+			data.writeInt(threads);
+			data.writeUTF(out);
+			data.writeUTF(evaluator);
+			byte[] weightBytes = weights.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(weightBytes.length);
+			data.write(weightBytes);
+			data.writeLong(next);
+			data.writeLong(completed);
+			data.writeLong(scoreSum);
+			data.writeLong(moveSum);
+
+			data.writeLong(results.position);
+			data.writeInt(results.blockOffsets.length);
+			for (int b = 0; b < results.blockOffsets.length; b++) {
+				data.writeLong(results.blockOffsets[b]);
+				data.writeInt(results.blockRows[b]);
+			}
+			data.writeInt(results.strategies.size());
+			for (String name : results.strategies) {
+				data.writeUTF(name);
+			}
+			data.writeInt(results.rows);
+			data.writeInt(results.columns.length);
+			for (byte[] column : results.columns) {
+				data.writeInt(column.length);
+				data.write(column);
+			}
+
+			data.writeInt(inFlight.size());
+			for (InFlight game : inFlight) {
+				data.writeLong(game.seed);
+				data.writeInt(game.moves);
+				data.writeLong(game.elapsedNanos);
+				data.writeLong(game.spawnState);
+				data.writeLong(game.strategyState);
+				data.writeInt(game.position.score());
+				data.writeByte(game.position.size());
+				for (int cell = 0; cell < game.position.size() * game.position.size(); cell++) {
+					data.writeByte(game.position.exponent(cell));
+				}
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a checkpoint.
+	 *
+	 * @param file The checkpoint file.
+	 * @return The checkpoint.
+	 * @throws IOException If the file cannot be read or is not a checkpoint.
+	 */
+	public static Checkpoint read(Path file) throws IOException {
+		try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (data.readLong() != MAGIC)
+				throw new IOException(file + " is not a checkpoint.");
+			int version = data.readInt();
+			if (version < 1 || version > VERSION)
+				throw new IOException("Unsupported checkpoint version " + version + ".");
+			String strategy = data.readUTF();
+			int size = data.readInt();
+			long seed = data.readLong();
+			long games = data.readLong();
+			int threads = version >= 2 ? data.readInt() : 0;
+			String out = data.readUTF();
+			String evaluator = data.readUTF();
+			String weights;
+			if (version >= 3) {
+				byte[] weightBytes = new byte[data.readInt()];
+				data.readFully(weightBytes);
+				weights = new String(weightBytes, StandardCharsets.UTF_8);
+			} else {
+				weights = data.readUTF();
+			}
+			long next = data.readLong();
+			long completed = data.readLong();
+			long scoreSum = data.readLong();
+			long moveSum = data.readLong();
+
+			long position = data.readLong();
+			long[] offsets = new long[data.readInt()];
+			int[] blockRows = new int[offsets.length];
+			for (int b = 0; b < offsets.length; b++) {
+				offsets[b] = data.readLong();
+				blockRows[b] = data.readInt();
+			}
+			List<String> strategies = new ArrayList<>();
+			for (int s = data.readInt(); s > 0; s--) {
+				strategies.add(data.readUTF());
+			}
+			int rows = data.readInt();
+			byte[][] columns = new byte[data.readInt()][];
+			for (int c = 0; c < columns.length; c++) {
+				columns[c] = new byte[data.readInt()];
+				data.readFully(columns[c]);
+			}
+			ResultsWriter.State results = new ResultsWriter.State(position, offsets, blockRows, strategies, rows,
+					columns);
+
+			List<InFlight> inFlight = new ArrayList<>();
+			for (int g = data.readInt(); g > 0; g--) {
+				long gameSeed = data.readLong();
+				int moves = data.readInt();
+				long elapsed = data.readLong();
+				long spawnState = data.readLong();
+				long strategyState = data.readLong();
+				int score = data.readInt();
+				int boardSize = data.readByte();
+				int[][] tiles = new int[boardSize][boardSize];
+				for (int cell = 0; cell < boardSize * boardSize; cell++) {
+					int exponent = data.readByte();
+					tiles[cell / boardSize][cell % boardSize] = exponent == 0 ? 0 : 1 << exponent;
+				}
+				inFlight.add(new InFlight(gameSeed, BoardSnapshot.of(tiles, score), moves, elapsed, spawnState,
+						strategyState));
+			}
+			return new Checkpoint(strategy, size, seed, games, threads, out, evaluator, weights, next, completed, scoreSum,
+					moveSum, results, inFlight);
+		}
+	}
+}
@@ -0,0 +1,649 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.Game;
+import logic.MovePreview;
+import logic.SpawnRandom;
+import logic.TileSpawner;
+
+/**
+ * Plays seeded random move sequences on the reference {@link Board} and on
+ * candidate engines, and compares tiles, score, the 2048 flag, whether each
+ * move changed the board and the legal moves after every step. Cases are
+ * spread over all processors; the divergence with the lowest case number is
+ * reported, minimized to the shortest sequence and simplest start position
+ * that still diverge.
+ * <p>
+ * Case {@code i} is generated from seed {@code seed + i}: a board size from 2
+ * to {@link Board#MAX_SIZE}, mostly 4, a start position with tiles up to
+ * 2^16 so merges into and past 2048 are common, and up to 200 steps.
+ */
+public class DifferentialFuzzer {
+
+	private static final int MAX_STEPS = 200; // Steps per case
+	private static final int MAX_EXPONENT = 16; // Largest tile exponent in start positions
+
+	private final List<String> engines; // Names of the candidate engines
+
+	/**
+	 * Creates a fuzzer.
+	 *
+	 * @param engines The names of the candidate engines, see
+	 *                {@link #engine(String)}.
+	 */
+	public DifferentialFuzzer(List<String> engines) {
+		for (String name : engines) {
+			engine(name); // Fail early on unknown names
+		}
+		this.engines = engines;
+	}
+
+	/**
+	 * Runs the fuzzer. Options are {@code --cases n}, {@code --seed n} and
+	 * {@code --engines name,...}; the built-in engines are {@code snapshot},
+	 * {@code preview} and {@code game}. Exits with status 1 if an engine
+	 * diverges.
+	 *
+	 * @param args The command line options.
+	 */
+	public static void main(String[] args) {
+		long cases = 1_000_000;
+		long seed = 1;
+		String engines = "snapshot,preview,game";
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--cases":
+				cases = Long.parseLong(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--engines":
+				engines = args[++i];
+				break;
+			default:
+				System.err.println("Error: Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(Arrays.asList(engines.split(",")));
+		long start = System.nanoTime();
+		Optional<Divergence> divergence = fuzzer.run(seed, cases);
+		System.out.printf("%d cases on %s in %.1f s.%n", cases, engines, (System.nanoTime() - start) / 1e9);
+		if (divergence.isPresent()) {
+			System.out.println(divergence.get());
+			System.exit(1);
+		}
+		System.out.println("No divergence.");
+	}
+
+	/**
+	 * Creates a candidate engine.
+	 *
+	 * @param name {@code snapshot} ({@link BoardSnapshot#withMove} and
+	 *             {@link BoardSnapshot#withSpawn}), {@code preview}
+	 *             ({@link Board#previewMove}) or {@code game} ({@link Game},
+	 *             which keeps its own score).
+	 * @return The engine.
+	 * @throws IllegalArgumentException If the name is unknown.
+	 */
+	public static FuzzEngine engine(String name) {
+		switch (name) {
+		case "snapshot":
+			return new SnapshotEngine();
+		case "preview":
+			return new PreviewEngine();
+		case "game":
+			return new GameEngine();
+		default:
+			throw new IllegalArgumentException("Unknown engine " + name + ".");
+		}
+	}
+
+	/**
+	 * Runs cases {@code seed} to {@code seed + cases - 1} in parallel.
+	 *
+	 * @param seed  The seed of the first case.
+	 * @param cases The number of cases.
+	 * @return The minimized divergence of the lowest failing case, if any.
+	 */
+	public Optional<Divergence> run(long seed, long cases) {
+		return LongStream.range(0, cases).parallel().mapToObj(i -> check(Case.generate(seed + i)))
+				.filter(d -> d != null).findFirst().map(this::minimize);
+	}
+
+	/**
+	 * Plays a case on the reference and every candidate.
+	 *
+	 * @param c The case.
+	 * @return The first divergence, or null if all engines agree.
+	 */
+	Divergence check(Case c) {
+		Trace trace = new Trace(c);
+		for (String name : engines) {
+			Divergence divergence = compare(c, trace, engine(name));
+			if (divergence != null)
+				return divergence;
+		}
+		return null;
+	}
+
+	/**
+	 * Plays a case on one candidate, comparing it with the reference after
+	 * every step.
+	 *
+	 * @return The first divergence, or null if the engines agree.
+	 */
+	private static Divergence compare(Case c, Trace trace, FuzzEngine candidate) {
+		candidate.start(c.start);
+		String difference = trace.difference(0, candidate, true);
+		if (difference != null)
+			return new Divergence(c, candidate.name(), 0, difference, trace.tiles[0], candidate);
+		for (int s = 0; s < c.directions.length; s++) {
+			boolean changed = candidate.step(c.directions[s], c.choices[s]);
+			difference = trace.difference(s + 1, candidate, changed);
+			if (difference != null)
+				return new Divergence(c, candidate.name(), s + 1, difference, trace.tiles[s + 1], candidate);
+		}
+		return null;
+	}
+
+	/**
+	 * Plays a case on the reference and one candidate.
+	 *
+	 * @return The first divergence, or null if the engines agree.
+	 */
+	private static Divergence compare(Case c, FuzzEngine candidate) {
+		return compare(c, new Trace(c), candidate);
+	}
+
+	/**
+	 * Shrinks a divergence: first to a single step from the reference position
+	 * before it, then by dropping steps, clearing the start score and emptying
+	 * and lowering tiles of the start position, keeping every change that
+	 * still diverges on the same engine.
+	 *
+	 * @param divergence The divergence found.
+	 * @return The smallest divergence found.
+	 */
+	Divergence minimize(Divergence divergence) {
+		FuzzEngine candidate = engine(divergence.engine);
+		Case c = divergence.c.prefix(divergence.step);
+		if (divergence.step > 0) {
+			Trace trace = new Trace(c);
+			int last = divergence.step - 1;
+			BoardSnapshot before = BoardSnapshot.of(trace.tiles[last], trace.scores[last]);
+			Case single = c.from(before, last);
+			if (before.hasReached2048() == trace.reached[last] && compare(single, candidate) != null)
+				c = single;
+		}
+
+		boolean progress = true;
+		while (progress) {
+			progress = false;
+			for (int s = 0; s < c.directions.length; s++) {
+				Case shorter = c.without(s);
+				Divergence d = compare(shorter, candidate);
+				if (d != null) {
+					c = shorter.prefix(d.step);
+					progress = true;
+					s--;
+				}
+			}
+			if (c.start.score() != 0) {
+				Case simpler = c.withScore(0);
+				Divergence d = compare(simpler, candidate);
+				if (d != null) {
+					c = simpler.prefix(d.step);
+					progress = true;
+				}
+			}
+			int cells = c.start.size() * c.start.size();
+			for (int cell = 0; cell < cells; cell++) {
+				for (int exponent = 0; exponent < c.start.exponent(cell); exponent++) {
+					Case simpler = c.withTile(cell, exponent);
+					Divergence d = compare(simpler, candidate);
+					if (d != null) {
+						c = simpler.prefix(d.step);
+						progress = true;
+						break;
+					}
+				}
+			}
+		}
+		return compare(c, candidate);
+	}
+
+	/**
+	 * A start position and a sequence of steps.
+	 */
+	static final class Case {
+		final long seed; // Seed the case was generated from
+		final BoardSnapshot start; // Start position
+		final Direction[] directions; // Move of each step
+		final int[] choices; // Spawn choice of each step
+
+		Case(long seed, BoardSnapshot start, Direction[] directions, int[] choices) {
+			this.seed = seed;
+			this.start = start;
+			this.directions = directions;
+			this.choices = choices;
+		}
+
+		/**
+		 * Generates a case from a seed.
+		 */
+		static Case generate(long seed) {
+			SpawnRandom random = new SpawnRandom(seed);
+			int size = random.nextInt(2) == 0 ? 4 : 2 + random.nextInt(Board.MAX_SIZE - 1);
+			int maxExponent = 3 + random.nextInt(MAX_EXPONENT - 2);
+			int[][] tiles = new int[size][size];
+			for (int[] row : tiles) {
+				for (int j = 0; j < size; j++) {
+					row[j] = random.nextInt(3) == 0 ? 0 : 1 << (1 + random.nextInt(maxExponent));
+				}
+			}
+			int steps = 1 + random.nextInt(MAX_STEPS);
+			Direction[] directions = new Direction[steps];
+			int[] choices = new int[steps];
+			for (int s = 0; s < steps; s++) {
+				directions[s] = Direction.fromOrdinal(random.nextInt(4));
+				choices[s] = (int) random.nextLong() & Integer.MAX_VALUE;
+			}
+			return new Case(seed, BoardSnapshot.of(tiles, random.nextInt(100_000)), directions, choices);
+		}
+
+		/**
+		 * @return The case cut to its first steps.
+		 */
+		Case prefix(int steps) {
+			return new Case(seed, start, Arrays.copyOf(directions, steps), Arrays.copyOf(choices, steps));
+		}
+
+		/**
+		 * @return The case started from another position at a step.
+		 */
+		Case from(BoardSnapshot position, int step) {
+			return new Case(seed, position, Arrays.copyOfRange(directions, step, directions.length),
+					Arrays.copyOfRange(choices, step, choices.length));
+		}
+
+		/**
+		 * @return The case without one step.
+		 */
+		Case without(int step) {
+			List<Integer> keep = new ArrayList<>();
+			for (int s = 0; s < directions.length; s++) {
+				if (s != step)
+					keep.add(s);
+			}
+			Direction[] d = new Direction[keep.size()];
+			int[] c = new int[keep.size()];
+			for (int k = 0; k < d.length; k++) {
+				d[k] = directions[keep.get(k)];
+				c[k] = choices[keep.get(k)];
+			}
+			return new Case(seed, start, d, c);
+		}
+
+		/**
+		 * @return The case with another start score.
+		 */
+		Case withScore(int score) {
+			return new Case(seed, BoardSnapshot.of(start.tiles(), score), directions, choices);
+		}
+
+		/**
+		 * @return The case with one start tile replaced.
+		 */
+		Case withTile(int cell, int exponent) {
+			int[][] tiles = start.tiles();
+			int size = start.size();
+			tiles[cell / size][cell % size] = exponent == 0 ? 0 : 1 << exponent;
+			return new Case(seed, BoardSnapshot.of(tiles, start.score()), directions, choices);
+		}
+	}
+
+	/**
+	 * The states of the reference after every step of a case.
+	 */
+	private static final class Trace {
+		final int[][][] tiles; // Tiles after each step, the start position first
+		final int[] scores; // Score after each step
+		final boolean[] reached; // 2048 flag after each step
+		final boolean[] changed; // Whether each step changed the board, index 0 unused
+		final int[] legal; // Legal moves after each step
+
+		Trace(Case c) {
+			int steps = c.directions.length;
+			tiles = new int[steps + 1][][];
+			scores = new int[steps + 1];
+			reached = new boolean[steps + 1];
+			changed = new boolean[steps + 1];
+			legal = new int[steps + 1];
+			ReferenceEngine reference = new ReferenceEngine();
+			reference.start(c.start);
+			record(0, reference);
+			changed[0] = true;
+			for (int s = 0; s < steps; s++) {
+				changed[s + 1] = reference.step(c.directions[s], c.choices[s]);
+				record(s + 1, reference);
+			}
+		}
+
+		private void record(int step, ReferenceEngine reference) {
+			tiles[step] = reference.tiles();
+			scores[step] = reference.score();
+			reached[step] = reference.hasReached2048();
+			legal[step] = reference.legalMoves();
+		}
+
+		/**
+		 * Describes how a candidate's position differs from the reference's.
+		 *
+		 * @return The difference, or null if there is none.
+		 */
+		String difference(int step, FuzzEngine candidate, boolean actualChange) {
+			if (changed[step] != actualChange)
+				return "changed " + actualChange + ", expected " + changed[step];
+			if (!Arrays.deepEquals(tiles[step], candidate.tiles()))
+				return "tiles differ";
+			if (scores[step] != candidate.score())
+				return "score " + candidate.score() + ", expected " + scores[step];
+			if (reached[step] != candidate.hasReached2048())
+				return "2048 flag " + candidate.hasReached2048() + ", expected " + reached[step];
+			if (legal[step] != candidate.legalMoves())
+				return "legal moves " + candidate.legalMoves() + ", expected " + legal[step];
+			return null;
+		}
+	}
+
+	/**
+	 * The first point where a candidate disagreed with the reference.
+	 */
+	public static final class Divergence {
+		final Case c; // The diverging case
+		final String engine; // Name of the candidate
+		final int step; // Steps made before the difference, 0 for the start position
+		final String difference; // What differed
+		final int[][] expected; // Reference tiles
+		final int[][] actual; // Candidate tiles
+
+		Divergence(Case c, String engine, int step, String difference, int[][] expected, FuzzEngine candidate) {
+			this.c = c;
+			this.engine = engine;
+			this.step = step;
+			this.difference = difference;
+			this.expected = expected;
+			this.actual = candidate.tiles();
+		}
+
+		/**
+		 * @return The name of the diverging engine.
+		 */
+		public String getEngine() {
+			return engine;
+		}
+
+		/**
+		 * @return The number of steps that reproduce the divergence.
+		 */
+		public int getSteps() {
+			return step;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			text.append("Engine ").append(engine).append(" diverges in case ").append(c.seed).append(" after ")
+					.append(step).append(step == 1 ? " step: " : " steps: ").append(difference).append('\n');
+			text.append("Start, score ").append(c.start.score()).append(":\n").append(format(c.start.tiles()));
+			for (int s = 0; s < c.directions.length; s++) {
+				text.append("Step ").append(s + 1).append(": ").append(c.directions[s]).append(", spawn choice ")
+						.append(c.choices[s]).append('\n');
+			}
+			text.append("Expected:\n").append(format(expected)).append("Actual:\n").append(format(actual));
+			return text.toString();
+		}
+
+		private static String format(int[][] tiles) {
+			StringBuilder text = new StringBuilder();
+			for (int[] row : tiles) {
+				for (int value : row) {
+					text.append(String.format("%6d", value));
+				}
+				text.append('\n');
+			}
+			return text.toString();
+		}
+	}
+
+	/**
+	 * The reference: {@link Board} with spawns chosen by the case.
+	 */
+	private static final class ReferenceEngine implements FuzzEngine {
+		private Board board; // The board under test
+		private Board scratch; // Tried moves are made on a copy, its hashes are not kept up to date
+		private int choice; // Spawn choice of the current step
+
+		@Override
+		public String name() {
+			return "board";
+		}
+
+		@Override
+		public void start(BoardSnapshot position) {
+			board = position.toBoard();
+			board.setSpawner((moved, random) -> FuzzEngine.spawnFor(moved, choice));
+		}
+
+		@Override
+		public boolean step(Direction direction, int choice) {
+			this.choice = choice;
+			return board.move(direction);
+		}
+
+		@Override
+		public int[][] tiles() {
+			int[][] tiles = new int[board.size][];
+			for (int i = 0; i < board.size; i++) {
+				tiles[i] = board.tiles[i].clone();
+			}
+			return tiles;
+		}
+
+		@Override
+		public int score() {
+			return board.getScore();
+		}
+
+		@Override
+		public boolean hasReached2048() {
+			return board.snapshot().hasReached2048();
+		}
+
+		@Override
+		public int legalMoves() {
+			if (scratch == null) {
+				scratch = board.snapshot().toBoard();
+				scratch.setSpawner((moved, random) -> TileSpawner.encode(firstEmpty(moved), 2));
+			}
+			int mask = 0;
+			for (Direction direction : Direction.values()) {
+				for (int i = 0; i < board.size; i++) {
+					System.arraycopy(board.tiles[i], 0, scratch.tiles[i], 0, board.size);
+				}
+				if (scratch.move(direction))
+					mask |= direction.bit();
+			}
+			return mask;
+		}
+
+		private static int firstEmpty(BoardSnapshot position) {
+			int cell = 0;
+			while (position.exponent(cell) != 0) {
+				cell++;
+			}
+			return cell;
+		}
+	}
+
+	/**
+	 * Immutable snapshots, as used by the searches.
+	 */
+	private static final class SnapshotEngine implements FuzzEngine {
+		private BoardSnapshot position; // The current position
+
+		@Override
+		public String name() {
+			return "snapshot";
+		}
+
+		@Override
+		public void start(BoardSnapshot position) {
+			this.position = position;
+		}
+
+		@Override
+		public boolean step(Direction direction, int choice) {
+			BoardSnapshot moved = position.withMove(direction);
+			if (moved == position)
+				return false;
+			int spawn = FuzzEngine.spawnFor(moved, choice);
+			position = moved.withSpawn(TileSpawner.cell(spawn), TileSpawner.value(spawn));
+			return true;
+		}
+
+		@Override
+		public int[][] tiles() {
+			return position.tiles();
+		}
+
+		@Override
+		public int score() {
+			return position.score();
+		}
+
+		@Override
+		public boolean hasReached2048() {
+			return position.hasReached2048();
+		}
+
+		@Override
+		public int legalMoves() {
+			return position.legalMoves();
+		}
+	}
+
+	/**
+	 * Move previews applied by hand, as the GUI shows them.
+	 */
+	private static final class PreviewEngine implements FuzzEngine {
+		private Board board; // The current position
+		private boolean reached; // Whether a 2048 tile has been created
+
+		@Override
+		public String name() {
+			return "preview";
+		}
+
+		@Override
+		public void start(BoardSnapshot position) {
+			board = position.toBoard();
+			reached = position.hasReached2048();
+		}
+
+		@Override
+		public boolean step(Direction direction, int choice) {
+			MovePreview preview = board.previewMove(direction);
+			if (!preview.isChanged())
+				return false;
+			BoardSnapshot moved = BoardSnapshot.of(preview.getTiles(), board.getScore() + preview.getGain());
+			reached |= moved.hasReached2048();
+			int spawn = FuzzEngine.spawnFor(moved, choice);
+			board = moved.withSpawn(TileSpawner.cell(spawn), TileSpawner.value(spawn)).toBoard();
+			return true;
+		}
+
+		@Override
+		public int[][] tiles() {
+			return board.snapshot().tiles();
+		}
+
+		@Override
+		public int score() {
+			return board.getScore();
+		}
+
+		@Override
+		public boolean hasReached2048() {
+			return reached;
+		}
+
+		@Override
+		public int legalMoves() {
+			return board.legalMoves();
+		}
+	}
+
+	/**
+	 * A {@link Game}, which tracks the score separately from its board.
+	 */
+	private static final class GameEngine implements FuzzEngine {
+		private Game game; // The game under test
+		private int choice; // Spawn choice of the current step
+
+		@Override
+		public String name() {
+			return "game";
+		}
+
+		@Override
+		public void start(BoardSnapshot position) {
+			game = Game.fromSnapshot(position);
+			game.setSpawner((moved, random) -> FuzzEngine.spawnFor(moved, choice));
+		}
+
+		@Override
+		public boolean step(Direction direction, int choice) {
+			this.choice = choice;
+			return game.move(direction);
+		}
+
+		@Override
+		public int[][] tiles() {
+			int size = game.getBoardSize();
+			int[][] tiles = new int[size][size];
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					tiles[i][j] = game.getTileValue(i, j);
+				}
+			}
+			return tiles;
+		}
+
+		@Override
+		public int score() {
+			return game.getScore();
+		}
+
+		@Override
+		public boolean hasReached2048() {
+			return game.hasReached2048();
+		}
+
+		@Override
+		public int legalMoves() {
+			return game.legalMoves();
+		}
+	}
+}
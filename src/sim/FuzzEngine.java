@@ -0,0 +1,77 @@
+package sim;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.TileSpawner;
+
+/**
+ * A board engine checked by the {@link DifferentialFuzzer} against the
+ * reference {@code logic.Board}. An engine is driven one step at a time: a
+ * move followed, if the move changed the board, by a spawn chosen with
+ * {@link #spawnFor(BoardSnapshot, int)}, so every engine receives exactly the
+ * same tiles. An instance is used by a single thread.
+ */
+public interface FuzzEngine {
+
+	/**
+	 * @return The name used to select the engine.
+	 */
+	String name();
+
+	/**
+	 * Starts playing from a position.
+	 *
+	 * @param position The position.
+	 */
+	void start(BoardSnapshot position);
+
+	/**
+	 * Makes a move and, if it changed the board, spawns the tile chosen by
+	 * {@link #spawnFor(BoardSnapshot, int)} for the moved position.
+	 *
+	 * @param direction The move.
+	 * @param choice    The spawn choice of the step.
+	 * @return Whether the move changed the board.
+	 */
+	boolean step(Direction direction, int choice);
+
+	/**
+	 * @return The tile values of the current position, indexed by row and
+	 *         column.
+	 */
+	int[][] tiles();
+
+	/**
+	 * @return The score of the current position.
+	 */
+	int score();
+
+	/**
+	 * @return Whether a 2048 tile has been created.
+	 */
+	boolean hasReached2048();
+
+	/**
+	 * @return A mask with {@link Direction#bit()} set for each legal move.
+	 */
+	int legalMoves();
+
+	/**
+	 * Resolves a spawn choice: bit 0 selects a 4 over a 2 and the remaining
+	 * bits select an empty cell, counted row by row.
+	 *
+	 * @param position The position after the move; it has an empty cell.
+	 * @param choice   The spawn choice.
+	 * @return The spawn, encoded as by {@link TileSpawner#encode(int, int)}.
+	 */
+	static int spawnFor(BoardSnapshot position, int choice) {
+		int empty = position.emptyCells();
+		int k = (choice >>> 1) % empty;
+		int cells = position.size() * position.size();
+		for (int cell = 0; cell < cells; cell++) {
+			if (position.exponent(cell) == 0 && k-- == 0)
+				return TileSpawner.encode(cell, (choice & 1) == 0 ? 2 : 4);
+		}
+		throw new IllegalArgumentException("The position has no empty cell.");
+	}
+}
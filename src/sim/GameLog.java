@@ -0,0 +1,101 @@
+package sim;
+
+import java.nio.ByteBuffer;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+
+/**
+ * The binary move log format. A log file starts with {@link #MAGIC} and
+ * holds any number of game records, each prefixed by its length in bytes so
+ * that readers can skip records without decoding them:
+ *
+ * <pre>
+ * int    record length, excluding this field
+ * long   seed
+ * byte   board size, at most 5
+ * byte   number of initial tiles, followed by (cell, exponent) byte pairs
+ * int    number of moves, followed by one byte per move
+ * </pre>
+ *
+ * A move byte holds the direction in bits 0-1, the cell of the tile spawned
+ * after the move in bits 2-6 and whether that tile was a 4 in bit 7. Only
+ * moves that changed the board are logged, and each of them spawns a tile, so
+ * a game can be replayed exactly from its record without the random stream.
+ * All values are big-endian.
+ */
+public final class GameLog {
+
+	/** Identifies log files, "2048LOG1" in ASCII. */
+	public static final long MAGIC = 0x323034384c4f4731L;
+	/** The largest board size that fits the move encoding. */
+	public static final int MAX_SIZE = 5;
+
+	private GameLog() {
+	}
+
+	/**
+	 * Encodes a logged move.
+	 *
+	 * @param direction The direction of the move.
+	 * @param cell      The cell of the spawned tile.
+	 * @param value     The value of the spawned tile, 2 or 4.
+	 * @return The move byte.
+	 */
+	public static byte encodeMove(Direction direction, int cell, int value) {
+		return (byte) (direction.ordinal() | cell << 2 | (value == 4 ? 0x80 : 0));
+	}
+
+	/**
+	 * Applies a logged move to a position.
+	 *
+	 * @param position The position before the move.
+	 * @param move     The move byte.
+	 * @return The position after the move and the spawn.
+	 */
+	public static BoardSnapshot replay(BoardSnapshot position, byte move) {
+		return position.withMove(direction(move)).withSpawn(spawnCell(move), spawnValue(move));
+	}
+
+	/**
+	 * @param move A move byte.
+	 * @return The direction of the move.
+	 */
+	public static Direction direction(byte move) {
+		return Direction.fromOrdinal(move & 3);
+	}
+
+	/**
+	 * @param move A move byte.
+	 * @return The cell of the tile spawned after the move.
+	 */
+	public static int spawnCell(byte move) {
+		return (move >>> 2) & 0x1f;
+	}
+
+	/**
+	 * @param move A move byte.
+	 * @return The value of the tile spawned after the move.
+	 */
+	public static int spawnValue(byte move) {
+		return (move & 0x80) != 0 ? 4 : 2;
+	}
+
+	/**
+	 * Skips the seed of a record and decodes its initial position, leaving
+	 * the buffer at the move count.
+	 *
+	 * @param record The buffer positioned after the record length.
+	 * @return The initial position.
+	 */
+	static BoardSnapshot readStart(ByteBuffer record) {
+		record.getLong(); // Seed
+		int size = record.get();
+		BoardSnapshot position = BoardSnapshot.of(new int[size][size], 0);
+		for (int tiles = record.get(); tiles > 0; tiles--) {
+			int cell = record.get();
+			position = position.withSpawn(cell, 1 << record.get());
+		}
+		return position;
+	}
+}
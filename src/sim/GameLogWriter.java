@@ -0,0 +1,144 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import logic.BoardSnapshot;
+import logic.Game;
+import logic.GameEvent;
+import logic.GameEventBus;
+
+/**
+ * Appends game records in the {@link GameLog} format to a file. Moves are
+ * taken from each game's event bus, so recording does not change how games
+ * are played. A writer is meant for one thread; give each simulation thread
+ * its own file.
+ */
+public class GameLogWriter implements Closeable {
+
+	private static final int BUFFER_BYTES = 1 << 20; // Records buffered before a channel write
+
+	private final FileChannel channel; // The log file
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES); // Pending records
+	private byte[] moves = new byte[1024]; // Moves of the game being recorded
+	private int moveCount; // Moves recorded for the current game
+	private int spawnCell; // Cell of the last spawn
+	private int spawnValue; // Value of the last spawn
+
+	/**
+	 * Creates or truncates a log file.
+	 *
+	 * @param file The file to write.
+	 * @throws IOException If the file cannot be created.
+	 */
+	public GameLogWriter(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer.putLong(GameLog.MAGIC);
+	}
+
+	/**
+	 * Starts recording a game.
+	 *
+	 * @param game The game, in its initial position.
+	 * @return The subscription to poll after every move with
+	 *         {@link #record(GameEventBus.Subscription)}.
+	 */
+	public GameEventBus.Subscription begin(Game game) {
+		if (game.getBoardSize() > GameLog.MAX_SIZE)
+			throw new IllegalArgumentException("Move logs support boards up to " + GameLog.MAX_SIZE + ".");
+		moveCount = 0;
+		return game.events().subscribe();
+	}
+
+	/**
+	 * Records the events published since the last call.
+	 *
+	 * @param subscription The subscription returned by {@link #begin(Game)}.
+	 */
+	public void record(GameEventBus.Subscription subscription) {
+		subscription.poll(this::onEvent);
+		if (subscription.getMissed() > 0)
+			throw new IllegalStateException("The recorder fell behind the game.");
+	}
+
+	/**
+	 * Writes the record of a finished game.
+	 *
+	 * @param seed         The seed the game was created with.
+	 * @param initial      The initial position of the game.
+	 * @param subscription The subscription returned by {@link #begin(Game)}.
+	 * @throws IOException If writing fails.
+	 */
+	public void end(long seed, BoardSnapshot initial, GameEventBus.Subscription subscription) throws IOException {
+		record(subscription);
+		int size = initial.size();
+		int tiles = size * size - initial.emptyCells();
+		int length = 8 + 1 + 1 + 2 * tiles + 4 + moveCount;
+		if (buffer.remaining() < 4 + length)
+			flush();
+		if (buffer.remaining() < 4 + length) {
+			ByteBuffer large = ByteBuffer.allocate(4 + length);
+			put(large, length, seed, initial);
+			write(large.flip());
+		} else {
+			put(buffer, length, seed, initial);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Collects the direction of changing moves and the spawn that follows.
+	 */
+	private void onEvent(GameEvent event) {
+		switch (event.getType()) {
+		case TILE_SPAWNED:
+			spawnCell = event.getCell();
+			spawnValue = event.getValue();
+			break;
+		case MOVE_APPLIED:
+			if (!event.isChanged())
+				break;
+			if (moveCount == moves.length)
+				moves = Arrays.copyOf(moves, moveCount * 2);
+			moves[moveCount++] = GameLog.encodeMove(event.getDirection(), spawnCell, spawnValue);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void put(ByteBuffer out, int length, long seed, BoardSnapshot initial) {
+		int size = initial.size();
+		out.putInt(length).putLong(seed).put((byte) size).put((byte) (size * size - initial.emptyCells()));
+		for (int cell = 0; cell < size * size; cell++) {
+			if (initial.exponent(cell) != 0)
+				out.put((byte) cell).put((byte) initial.exponent(cell));
+		}
+		out.putInt(moveCount).put(moves, 0, moveCount);
+	}
+
+	private void flush() throws IOException {
+		write(buffer.flip());
+		buffer.clear();
+	}
+
+	private void write(ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			channel.write(data);
+		}
+	}
+}
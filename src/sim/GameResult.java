@@ -0,0 +1,75 @@
+package sim;
+
+/**
+ * The outcome of one simulated game.
+ */
+public final class GameResult {
+
+	private final long seed; // Seed of the game's tile spawns
+	private final String strategy; // Name of the strategy that played
+	private final int score; // Final score
+	private final int maxTile; // Largest tile reached
+	private final int moves; // Moves that changed the board
+	private final long durationNanos; // Time spent playing
+
+	/**
+	 * Creates a result.
+	 *
+	 * @param seed          The seed of the game's tile spawns.
+	 * @param strategy      The name of the strategy that played.
+	 * @param score         The final score.
+	 * @param maxTile       The largest tile reached.
+	 * @param moves         The number of moves made.
+	 * @param durationNanos The time spent playing in nanoseconds.
+	 */
+	public GameResult(long seed, String strategy, int score, int maxTile, int moves, long durationNanos) {
+		this.seed = seed;
+		this.strategy = strategy;
+		this.score = score;
+		this.maxTile = maxTile;
+		this.moves = moves;
+		this.durationNanos = durationNanos;
+	}
+
+	/**
+	 * @return The seed of the game's tile spawns.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The name of the strategy that played.
+	 */
+	public String getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * @return The final score.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return The largest tile reached.
+	 */
+	public int getMaxTile() {
+		return maxTile;
+	}
+
+	/**
+	 * @return The number of moves made.
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return The time spent playing in nanoseconds.
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+}
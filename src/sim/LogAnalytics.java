@@ -0,0 +1,314 @@
+package sim;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+
+/**
+ * Replays every game in a directory of move logs and prints aggregate
+ * statistics: when each tile is first reached, how often moves merge over the
+ * course of a game, how often each direction is played and which final
+ * positions lose most often.
+ * <p>
+ * Log files are memory-mapped in chunks of up to a gigabyte, so a log of any
+ * size can be read. Each chunk is split into ranges of about a megabyte of
+ * whole records, and the ranges are replayed by a parallel stream, so no
+ * object is kept per record. Each worker accumulates into its own
+ * {@link Stats} of primitive arrays; the stream merges them once at the end.
+ */
+public class LogAnalytics {
+
+	private static final int MAX_EXPONENT = 17; // Largest tile tracked
+	private static final int TURN_BUCKET = 64; // Turns per bucket of the turns-to-tile histogram
+	private static final int TURN_BUCKETS = 64; // Buckets of the turns-to-tile histogram, the last is open
+	private static final int CURVE_BUCKET = 16; // Turns per point of the merge-rate curve
+	private static final int CURVE_POINTS = 256; // Points of the merge-rate curve, the last is open
+	private static final int LOSS_SLOTS = 4096; // Final positions tracked per worker, a power of two
+	private static final int REPORTED_LOSSES = 10; // Final positions printed
+	private static final long MAP_CHUNK = 1L << 30; // Largest mapped part of a log file
+	private static final int RANGE_BYTES = 1 << 20; // Bytes of records replayed as one task
+
+	/**
+	 * Analyses the logs in a directory. The optional second argument limits
+	 * the number of worker threads.
+	 *
+	 * @param args The log directory and optionally the parallelism.
+	 * @throws Exception If the logs cannot be read.
+	 */
+	public static void main(String[] args) throws Exception {
+		Path directory = Paths.get(args.length > 0 ? args[0] : "logs");
+		if (args.length > 1)
+			System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", args[1]);
+		long start = System.nanoTime();
+		Stats stats = analyse(directory);
+		stats.print(System.out);
+		System.out.printf("Analysed %d games and %d moves in %.1f s.%n", stats.games, stats.moves,
+				(System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Replays every record of every {@code .log} file in a directory.
+	 *
+	 * @param directory The log directory.
+	 * @return The merged statistics.
+	 * @throws IOException If a log cannot be read.
+	 */
+	public static Stats analyse(Path directory) throws IOException {
+		List<Range> ranges = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".log")).sorted()::iterator) {
+				index(file, ranges);
+			}
+		}
+		return ranges.parallelStream().collect(Stats::new, Stats::add, Stats::merge);
+	}
+
+	/**
+	 * Consecutive whole records of a mapped chunk.
+	 */
+	private static final class Range {
+		final ByteBuffer chunk; // The mapped chunk
+		final int start; // Offset of the first record's length prefix
+		final int end; // Offset after the last record
+
+		Range(ByteBuffer chunk, int start, int end) {
+			this.chunk = chunk;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Maps a log file and adds the ranges of its records. A record that does
+	 * not fit in a chunk starts the next one; an incomplete
+	 * record at the end, as left by a writer that was killed, is skipped with a
+	 * warning.
+	 */
+	private static void index(Path file, List<Range> ranges) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 8)
+				return;
+			ByteBuffer magic = ByteBuffer.allocate(8);
+			while (magic.hasRemaining() && channel.read(magic, magic.position()) >= 0) {
+			}
+			if (magic.getLong(0) != GameLog.MAGIC)
+				throw new IOException("Not a move log: " + file);
+
+			long start = 8; // Offset of the first record not indexed yet
+			while (start < size) {
+				long end = Math.min(size, start + MAP_CHUNK);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+				int position = 0;
+				int rangeStart = 0;
+				while (position + 4 <= chunk.capacity()) {
+					int length = chunk.getInt(position);
+					if (length < 0 || length > chunk.capacity() - position - 4)
+						break;
+					position += 4 + length;
+					if (position - rangeStart >= RANGE_BYTES) {
+						ranges.add(new Range(chunk, rangeStart, position));
+						rangeStart = position;
+					}
+				}
+				if (position > rangeStart)
+					ranges.add(new Range(chunk, rangeStart, position));
+				start += position;
+				if (end == size || position == 0)
+					break;
+			}
+			if (start < size)
+				System.err.println("Warning: Ignoring " + (size - start) + " bytes of incomplete records at the end of "
+						+ file + ".");
+		}
+	}
+
+	/**
+	 * Statistics of any number of games, in primitive arrays so that adding a
+	 * game does not allocate beyond its replay.
+	 */
+	public static final class Stats {
+		private long games; // Games replayed
+		private long moves; // Moves replayed
+		private final long[] directions = new long[4]; // Moves per direction
+		private final long[][] turnsToTile = new long[MAX_EXPONENT + 1][TURN_BUCKETS]; // First turn per tile
+		private final long[] reached = new long[MAX_EXPONENT + 1]; // Games reaching each tile
+		private final long[] curveMoves = new long[CURVE_POINTS]; // Moves per turn bucket
+		private final long[] curveMerges = new long[CURVE_POINTS]; // Merges per turn bucket
+		private final long[] lossKeys = new long[LOSS_SLOTS]; // Heavy-hitter sketch of final positions
+		private final long[] lossCounts = new long[LOSS_SLOTS]; // Estimated count per slot
+		private final BoardSnapshot[] lossBoards = new BoardSnapshot[LOSS_SLOTS]; // The position per slot
+
+		/**
+		 * Replays the game records of a range.
+		 *
+		 * @param range The range.
+		 */
+		void add(Range range) {
+			ByteBuffer records = range.chunk.duplicate();
+			for (int next = range.start; next < range.end; next = records.position()) {
+				int length = records.getInt(next);
+				records.position(next + 4);
+				add(records);
+				records.position(next + 4 + length);
+			}
+		}
+
+		/**
+		 * Replays one game record.
+		 *
+		 * @param record The buffer positioned at the record, after its length
+		 *               prefix; its position is left inside the record.
+		 */
+		void add(ByteBuffer record) {
+			BoardSnapshot position = GameLog.readStart(record);
+			int maxExponent = maxExponent(position);
+			int count = record.getInt();
+			for (int turn = 0; turn < count; turn++) {
+				byte move = record.get();
+				Direction direction = GameLog.direction(move);
+				BoardSnapshot moved = position.withMove(direction);
+				int merges = moved.emptyCells() - position.emptyCells();
+				int point = Math.min(turn / CURVE_BUCKET, CURVE_POINTS - 1);
+				curveMoves[point]++;
+				curveMerges[point] += merges;
+				directions[direction.ordinal()]++;
+				if (merges > 0) {
+					int exponent = maxExponent(moved);
+					for (int e = maxExponent + 1; e <= Math.min(exponent, MAX_EXPONENT); e++) {
+						turnsToTile[e][Math.min(turn / TURN_BUCKET, TURN_BUCKETS - 1)]++;
+						reached[e]++;
+					}
+					maxExponent = Math.max(maxExponent, exponent);
+				}
+				position = moved.withSpawn(GameLog.spawnCell(move), GameLog.spawnValue(move));
+			}
+			games++;
+			moves += count;
+			countLoss(position);
+		}
+
+		/**
+		 * Combines the statistics of another worker into these.
+		 *
+		 * @param other The other statistics.
+		 */
+		void merge(Stats other) {
+			games += other.games;
+			moves += other.moves;
+			for (int i = 0; i < 4; i++) {
+				directions[i] += other.directions[i];
+			}
+			for (int e = 0; e <= MAX_EXPONENT; e++) {
+				reached[e] += other.reached[e];
+				for (int b = 0; b < TURN_BUCKETS; b++) {
+					turnsToTile[e][b] += other.turnsToTile[e][b];
+				}
+			}
+			for (int p = 0; p < CURVE_POINTS; p++) {
+				curveMoves[p] += other.curveMoves[p];
+				curveMerges[p] += other.curveMerges[p];
+			}
+			for (int i = 0; i < LOSS_SLOTS; i++) {
+				if (other.lossCounts[i] > 0)
+					countLoss(other.lossKeys[i], other.lossCounts[i], other.lossBoards[i]);
+			}
+		}
+
+		/**
+		 * Prints the statistics.
+		 *
+		 * @param out The stream to print to.
+		 */
+		void print(PrintStream out) {
+			out.println("Direction frequencies:");
+			for (Direction direction : Direction.values()) {
+				out.printf("  %-5s %6.2f%%%n", direction, 100.0 * directions[direction.ordinal()] / Math.max(1, moves));
+			}
+			out.println("Turns to reach each tile (games reaching it, median turn bucket):");
+			for (int e = 3; e <= MAX_EXPONENT; e++) {
+				if (reached[e] == 0)
+					continue;
+				long half = (reached[e] + 1) / 2;
+				int bucket = 0;
+				for (long seen = turnsToTile[e][0]; seen < half; seen += turnsToTile[e][++bucket]) {
+				}
+				out.printf("  %6d %6.2f%% of games, median turn %d-%d%n", 1 << e, 100.0 * reached[e] / games,
+						bucket * TURN_BUCKET, (bucket + 1) * TURN_BUCKET - 1);
+			}
+			out.println("Merges per move by turn:");
+			for (int p = 0; p < CURVE_POINTS && curveMoves[p] > 0; p += 4) {
+				out.printf("  turn %5d: %.3f%n", p * CURVE_BUCKET, (double) curveMerges[p] / curveMoves[p]);
+			}
+			out.println("Most frequent final positions:");
+			Integer[] order = new Integer[LOSS_SLOTS];
+			for (int i = 0; i < LOSS_SLOTS; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> Long.compare(lossCounts[b], lossCounts[a]));
+			for (int r = 0; r < REPORTED_LOSSES && lossCounts[order[r]] > 1; r++) {
+				int slot = order[r];
+				out.printf("  about %d losses%n", lossCounts[slot]);
+				BoardSnapshot board = lossBoards[slot];
+				for (int row = 0; row < board.size(); row++) {
+					out.print("   ");
+					for (int col = 0; col < board.size(); col++) {
+						out.printf(" %5d", board.getTileValue(row, col));
+					}
+					out.println();
+				}
+			}
+		}
+
+		private void countLoss(BoardSnapshot position) {
+			countLoss(Board.canonicalKey(position.tiles()), 1, position);
+		}
+
+		/**
+		 * Counts a final position in a hashed heavy-hitter sketch: each key
+		 * has one slot; a different key arriving at an occupied slot wears its
+		 * count down and takes the slot over once the count reaches zero, so
+		 * frequent positions survive while rare ones keep replacing each
+		 * other. Counts are estimates.
+		 */
+		private void countLoss(long key, long count, BoardSnapshot board) {
+			int slot = (int) (key ^ key >>> 32) & (LOSS_SLOTS - 1);
+			if (lossCounts[slot] > 0 && lossKeys[slot] != key) {
+				long remaining = lossCounts[slot] - count;
+				if (remaining >= 0) {
+					lossCounts[slot] = remaining;
+					return;
+				}
+				count = -remaining;
+				lossCounts[slot] = 0;
+			}
+			if (lossCounts[slot] == 0) {
+				lossKeys[slot] = key;
+				lossBoards[slot] = board;
+			}
+			lossCounts[slot] += count;
+		}
+
+		private static int maxExponent(BoardSnapshot position) {
+			int max = 0;
+			for (int cell = position.size() * position.size() - 1; cell >= 0; cell--) {
+				max = Math.max(max, position.exponent(cell));
+			}
+			return max;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package sim;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import logic.Board;
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.Game;
+import logic.ai.Evaluator;
+import logic.ai.Expectimax;
+import logic.ai.OpeningBook;
+
+/**
+ * Builds an {@link OpeningBook} offline. Games are played with a shallow
+ * {@link Expectimax} and every position of their openings is counted by
+ * canonical key, so symmetric positions count together. The positions reached
+ * often enough are then searched deeply and the best moves written to the
+ * book. Both phases run on all processors; game {@code i} is seeded with
+ * {@code seed + i}, so a build is reproducible.
+ */
+public class OpeningBookBuilder {
+
+	private final int size; // Board size
+	private final int moves; // Moves of each game counted as its opening
+	private final Expectimax player; // Plays the games
+	private final Expectimax deep; // Searches the book positions
+	private final Map<Long, Candidate> candidates = new ConcurrentHashMap<>(); // Opening positions by canonical key
+
+	/**
+	 * An opening position and how often it was reached.
+	 */
+	private static final class Candidate {
+		final BoardSnapshot position; // The first position reached with the key
+		final AtomicInteger count = new AtomicInteger(); // Times reached
+
+		Candidate(BoardSnapshot position) {
+			this.position = position;
+		}
+	}
+
+	/**
+	 * Creates a builder. Neither search consults an existing book.
+	 *
+	 * @param size      The board size.
+	 * @param moves     The number of moves of each game counted as its
+	 *                  opening.
+	 * @param playDepth The depth of the search playing the games.
+	 * @param depth     The depth of the search choosing the book moves.
+	 * @param evaluator The heuristic of both searches.
+	 */
+	public OpeningBookBuilder(int size, int moves, int playDepth, int depth, Evaluator evaluator) {
+		this.size = size;
+		this.moves = moves;
+		this.player = new Expectimax(playDepth, evaluator);
+		this.deep = new Expectimax(depth, evaluator);
+	}
+
+	/**
+	 * Builds a book. Options are {@code --size n}, {@code --games n},
+	 * {@code --moves n} (opening length), {@code --min-count n} (times a
+	 * position must be reached), {@code --depth n} (book search depth),
+	 * {@code --play-depth n}, {@code --seed n}, {@code --threads n} and
+	 * {@code --out file}, by default {@code openingBook.bin}.
+	 *
+	 * @param args The command line options.
+	 * @throws Exception If the book cannot be built or written.
+	 */
+	public static void main(String[] args) throws Exception {
+		int size = 4;
+		long games = 1000;
+		int moves = 30;
+		int minCount = 2;
+		int depth = 4;
+		int playDepth = 2;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String out = "openingBook.bin";
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--games":
+				games = Long.parseLong(args[++i]);
+				break;
+			case "--moves":
+				moves = Integer.parseInt(args[++i]);
+				break;
+			case "--min-count":
+				minCount = Integer.parseInt(args[++i]);
+				break;
+			case "--depth":
+				depth = Integer.parseInt(args[++i]);
+				break;
+			case "--play-depth":
+				playDepth = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--out":
+				out = args[++i];
+				break;
+			default:
+				System.err.println("Error: Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		OpeningBookBuilder builder = new OpeningBookBuilder(size, moves, playDepth, depth,
+				Evaluator.named(System.getProperty("ai.evaluator", "weighted")));
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			long start = System.nanoTime();
+			builder.play(pool, seed, games);
+			System.out.printf("%d games, %d distinct positions in %.1f s.%n", games, builder.candidates.size(),
+					(System.nanoTime() - start) / 1e9);
+			start = System.nanoTime();
+			Map<Long, Direction> book = builder.solve(pool, minCount);
+			OpeningBook.write(Paths.get(out), size, book);
+			System.out.printf("%d positions searched to depth %d in %.1f s, written to %s.%n", book.size(), depth,
+					(System.nanoTime() - start) / 1e9, out);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays games and counts the positions of their openings.
+	 *
+	 * @param pool  The workers.
+	 * @param seed  The seed of the first game.
+	 * @param games The number of games.
+	 * @throws InterruptedException If interrupted while waiting.
+	 * @throws ExecutionException   If a game failed.
+	 */
+	public void play(ForkJoinPool pool, long seed, long games) throws InterruptedException, ExecutionException {
+		pool.submit(() -> LongStream.range(0, games).parallel().forEach(i -> playOpening(seed + i))).get();
+	}
+
+	/**
+	 * Searches every position reached at least a number of times.
+	 *
+	 * @param pool     The workers.
+	 * @param minCount The number of times a position must have been reached.
+	 * @return The book moves by canonical key, in the canonical orientation.
+	 * @throws InterruptedException If interrupted while waiting.
+	 * @throws ExecutionException   If a search failed.
+	 */
+	public Map<Long, Direction> solve(ForkJoinPool pool, int minCount)
+			throws InterruptedException, ExecutionException {
+		List<Map.Entry<Long, Candidate>> frequent = candidates.entrySet().stream()
+				.filter(e -> e.getValue().count.get() >= minCount).collect(Collectors.toList());
+		Map<Long, Direction> book = new ConcurrentHashMap<>();
+		pool.submit(() -> frequent.parallelStream().forEach(e -> {
+			BoardSnapshot position = e.getValue().position;
+			Direction best = deep.bestMove(position, () -> false);
+			if (best != null)
+				book.put(e.getKey(), Board.transform(best, Board.canonicalSymmetry(position.tiles())));
+		})).get();
+		return book;
+	}
+
+	/**
+	 * Plays the opening of one game, counting each position before a move.
+	 */
+	private void playOpening(long gameSeed) {
+		Game game = new Game(size, gameSeed);
+		BoardSnapshot position = game.snapshot();
+		for (int move = 0; move < moves && position.legalMoves() != 0; move++) {
+			BoardSnapshot reached = position;
+			candidates.computeIfAbsent(Board.canonicalKey(reached.tiles()), key -> new Candidate(reached)).count
+					.incrementAndGet();
+			game.move(player.bestMove(position, () -> false));
+			position = game.snapshot();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package sim;
+
+/**
+ * The columns of a results file, in storage order within a block.
+ */
+public enum ResultColumn {
+	/** Seed of the game, a long. */
+	SEED(8),
+	/** Index of the strategy in the file's strategy dictionary, an int. */
+	STRATEGY(4),
+	/** Final score, an int. */
+	SCORE(4),
+	/** Largest tile, an int. */
+	MAX_TILE(4),
+	/** Number of moves, an int. */
+	MOVES(4),
+	/** Playing time in nanoseconds, a long. */
+	DURATION_NANOS(8);
+
+	/** The sum of the widths of all columns. */
+	static final int ROW_BYTES = 32;
+
+	private final int width; // Bytes per value
+
+	ResultColumn(int width) {
+		this.width = width;
+	}
+
+	/**
+	 * @return The number of bytes per value.
+	 */
+	public int width() {
+		return width;
+	}
+}
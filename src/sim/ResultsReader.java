@@ -0,0 +1,240 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads a file written by {@link ResultsWriter}. Only the footer is read when
+ * the file is opened; scans memory-map the requested column of each block, so
+ * an analysis touches only the bytes of the columns it uses.
+ */
+public class ResultsReader implements Closeable {
+
+	private final FileChannel channel; // The results file
+	private final long[] blockOffsets; // File offset of each block
+	private final int[] blockRows; // Rows of each block
+	private final List<String> strategies; // Strategy dictionary
+	private final long rows; // Total number of rows
+
+	/**
+	 * Opens a results file and reads its footer.
+	 *
+	 * @param file The file to read.
+	 * @throws IOException If the file cannot be read or is not a results file.
+	 */
+	public ResultsReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < ResultsWriter.HEADER_BYTES + 16)
+				throw new IOException("Not a results file: " + file);
+			ByteBuffer header = read(0, ResultsWriter.HEADER_BYTES);
+			ByteBuffer trailer = read(size - 16, 16);
+			if (header.getLong() != ResultsWriter.MAGIC || trailer.getLong(8) != ResultsWriter.MAGIC)
+				throw new IOException("Not a results file: " + file);
+			int version = header.getInt();
+			int columnCount = header.getInt();
+			if (version != ResultsWriter.VERSION || columnCount != ResultColumn.values().length)
+				throw new IOException("Unsupported results file version " + version + ".");
+
+			long footerOffset = trailer.getLong(0);
+			ByteBuffer footer = read(footerOffset, (int) (size - 16 - footerOffset));
+			int blocks = footer.getInt();
+			blockOffsets = new long[blocks];
+			blockRows = new int[blocks];
+			long total = 0;
+			for (int b = 0; b < blocks; b++) {
+				blockOffsets[b] = footer.getLong();
+				blockRows[b] = footer.getInt();
+				total += blockRows[b];
+			}
+			rows = total;
+			List<String> names = new ArrayList<>();
+			for (int s = footer.getInt(); s > 0; s--) {
+				byte[] name = new byte[footer.getShort()];
+				footer.get(name);
+				names.add(new String(name, StandardCharsets.UTF_8));
+			}
+			strategies = Collections.unmodifiableList(names);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of results in the file.
+	 */
+	public long rows() {
+		return rows;
+	}
+
+	/**
+	 * @return The strategy names, indexed by the values of the
+	 *         {@link ResultColumn#STRATEGY} column.
+	 */
+	public List<String> strategies() {
+		return strategies;
+	}
+
+	/**
+	 * Passes every value of an int column to a consumer, in row order.
+	 *
+	 * @param column   A column four bytes wide.
+	 * @param consumer Receives the values.
+	 * @throws IOException If the column cannot be mapped.
+	 */
+	public void scanInts(ResultColumn column, IntConsumer consumer) throws IOException {
+		if (column.width() != 4)
+			throw new IllegalArgumentException(column + " is not an int column.");
+		for (int b = 0; b < blockRows.length; b++) {
+			IntBuffer values = map(b, column).asIntBuffer();
+			for (int i = 0; i < blockRows[b]; i++) {
+				consumer.accept(values.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Passes every value of a long column to a consumer, in row order.
+	 *
+	 * @param column   A column eight bytes wide.
+	 * @param consumer Receives the values.
+	 * @throws IOException If the column cannot be mapped.
+	 */
+	public void scanLongs(ResultColumn column, LongConsumer consumer) throws IOException {
+		if (column.width() != 8)
+			throw new IllegalArgumentException(column + " is not a long column.");
+		for (int b = 0; b < blockRows.length; b++) {
+			LongBuffer values = map(b, column).asLongBuffer();
+			for (int i = 0; i < blockRows[b]; i++) {
+				consumer.accept(values.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Computes the mean of a column.
+	 *
+	 * @param column The column.
+	 * @return The mean, or NaN for an empty file.
+	 * @throws IOException If the column cannot be mapped.
+	 */
+	public double mean(ResultColumn column) throws IOException {
+		double[] sum = new double[1];
+		if (column.width() == 4)
+			scanInts(column, value -> sum[0] += value);
+		else
+			scanLongs(column, value -> sum[0] += value);
+		return sum[0] / rows;
+	}
+
+	/**
+	 * Counts the values of an int column holding powers of two, such as
+	 * {@link ResultColumn#MAX_TILE}, by exponent.
+	 *
+	 * @param column The column.
+	 * @return The number of rows per exponent, index 0 counting zeros.
+	 * @throws IOException If the column cannot be mapped.
+	 */
+	public long[] histogramByExponent(ResultColumn column) throws IOException {
+		long[] counts = new long[32];
+		scanInts(column, value -> counts[value == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(value)]++);
+		return counts;
+	}
+
+	/**
+	 * Computes the mean of an int column per strategy, scanning the strategy
+	 * column alongside it.
+	 *
+	 * @param column An int column.
+	 * @return The mean per strategy index.
+	 * @throws IOException If a column cannot be mapped.
+	 */
+	public double[] meanByStrategy(ResultColumn column) throws IOException {
+		double[] sums = new double[strategies.size()];
+		long[] counts = new long[strategies.size()];
+		for (int b = 0; b < blockRows.length; b++) {
+			IntBuffer ids = map(b, ResultColumn.STRATEGY).asIntBuffer();
+			IntBuffer values = map(b, column).asIntBuffer();
+			for (int i = 0; i < blockRows[b]; i++) {
+				int id = ids.get(i);
+				sums[id] += values.get(i);
+				counts[id]++;
+			}
+		}
+		for (int s = 0; s < sums.length; s++) {
+			sums[s] /= counts[s];
+		}
+		return sums;
+	}
+
+	/**
+	 * Prints a summary of a results file.
+	 *
+	 * @param args The results file.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		try (ResultsReader reader = new ResultsReader(Paths.get(args.length > 0 ? args[0] : "results.bin"))) {
+			System.out.println("Games: " + reader.rows());
+			System.out.printf("Mean score: %.1f%n", reader.mean(ResultColumn.SCORE));
+			System.out.printf("Mean moves: %.1f%n", reader.mean(ResultColumn.MOVES));
+			System.out.printf("Mean duration: %.3f ms%n", reader.mean(ResultColumn.DURATION_NANOS) / 1e6);
+			double[] scores = reader.meanByStrategy(ResultColumn.SCORE);
+			for (int s = 0; s < scores.length; s++) {
+				System.out.printf("Mean score of %s: %.1f%n", reader.strategies().get(s), scores[s]);
+			}
+			long[] tiles = reader.histogramByExponent(ResultColumn.MAX_TILE);
+			for (int e = 1; e < tiles.length; e++) {
+				if (tiles[e] > 0)
+					System.out.printf("Max tile %6d: %d (%.2f%%)%n", 1 << e, tiles[e], 100.0 * tiles[e] / reader.rows());
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Maps one column of one block.
+	 */
+	private ByteBuffer map(int block, ResultColumn column) throws IOException {
+		long offset = blockOffsets[block];
+		for (ResultColumn before : ResultColumn.values()) {
+			if (before == column)
+				break;
+			offset += (long) before.width() * blockRows[block];
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) column.width() * blockRows[block])
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Reads a small region of the file.
+	 */
+	private ByteBuffer read(long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length)).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0)
+				throw new IOException("Unexpected end of results file.");
+		}
+		return buffer.flip();
+	}
+}
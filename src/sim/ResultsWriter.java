@@ -0,0 +1,251 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams game results into a columnar binary file. Rows are buffered in
+ * blocks of up to {@link #BLOCK_ROWS}; each block is written as one gathering
+ * channel write holding every column's values back to back, so a reader can
+ * map a single column of a block without touching the others.
+ * <p>
+ * Layout, little-endian: a header (magic, version, column count, block rows),
+ * the blocks, a footer (block count, then offset and row count per block,
+ * then the strategy dictionary as length-prefixed UTF-8 names), and a
+ * trailer holding the footer offset and the magic again.
+ */
+public class ResultsWriter implements Closeable {
+
+	/** Identifies results files, "2048RES1" in ASCII. */
+	static final long MAGIC = 0x3230343852455331L;
+	/** The file format version. */
+	static final int VERSION = 1;
+	/** Bytes before the first block. */
+	static final int HEADER_BYTES = 8 + 4 + 4 + 4;
+	/** The maximum number of rows per block. */
+	public static final int BLOCK_ROWS = 65536;
+
+	private static final ResultColumn[] COLUMNS = ResultColumn.values();
+
+	private final Path file; // Path of the results file
+	private final FileChannel channel; // The results file
+	private final ByteBuffer[] columns = new ByteBuffer[COLUMNS.length]; // Values of the open block
+	private final List<String> strategies = new ArrayList<>(); // Strategy dictionary
+	private final Map<String, Integer> strategyIds = new HashMap<>(); // Index of each strategy
+	private final List<Long> blockOffsets = new ArrayList<>(); // File offset of each written block
+	private final List<Integer> blockRows = new ArrayList<>(); // Rows of each written block
+	private long position; // File offset of the next block
+	private int rows; // Rows in the open block
+
+	/**
+	 * Creates or truncates a results file.
+	 *
+	 * @param file The file to write.
+	 * @throws IOException If the file cannot be created.
+	 */
+	public ResultsWriter(Path file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		for (int c = 0; c < COLUMNS.length; c++) {
+			columns[c] = ByteBuffer.allocateDirect(BLOCK_ROWS * COLUMNS[c].width()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC).putInt(VERSION).putInt(COLUMNS.length).putInt(BLOCK_ROWS).flip();
+		writeFully(header);
+	}
+
+	/**
+	 * Reopens a results file at a state captured by {@link #snapshot()}.
+	 * Anything written after the snapshot is discarded, so the file continues
+	 * exactly as if writing had stopped there.
+	 *
+	 * @param file  The file to continue.
+	 * @param state The captured state.
+	 * @throws IOException If the file cannot be opened or is shorter than the
+	 *                     state.
+	 */
+	public ResultsWriter(Path file, State state) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		if (channel.size() < state.position) {
+			channel.close();
+			throw new IOException("Results file " + file + " is shorter than its checkpoint.");
+		}
+		channel.truncate(state.position);
+		channel.position(state.position);
+		position = state.position;
+		for (int c = 0; c < COLUMNS.length; c++) {
+			columns[c] = ByteBuffer.allocateDirect(BLOCK_ROWS * COLUMNS[c].width()).order(ByteOrder.LITTLE_ENDIAN);
+			columns[c].put(state.columns[c]);
+		}
+		for (int b = 0; b < state.blockOffsets.length; b++) {
+			blockOffsets.add(state.blockOffsets[b]);
+			blockRows.add(state.blockRows[b]);
+		}
+		for (String strategy : state.strategies) {
+			strategyIds.put(strategy, strategies.size());
+			strategies.add(strategy);
+		}
+		rows = state.rows;
+	}
+
+	/**
+	 * Copies the writer's state, including the rows of the open block, so a
+	 * later run can continue the file with {@link #ResultsWriter(Path, State)}.
+	 *
+	 * @return The state.
+	 */
+	public synchronized State snapshot() {
+		byte[][] open = new byte[COLUMNS.length][];
+		for (int c = 0; c < COLUMNS.length; c++) {
+			ByteBuffer column = columns[c].duplicate().flip();
+			open[c] = new byte[column.remaining()];
+			column.get(open[c]);
+		}
+		long[] offsets = new long[blockOffsets.size()];
+		int[] counts = new int[blockRows.size()];
+		for (int b = 0; b < offsets.length; b++) {
+			offsets[b] = blockOffsets.get(b);
+			counts[b] = blockRows.get(b);
+		}
+		return new State(position, offsets, counts, new ArrayList<>(strategies), rows, open);
+	}
+
+	/**
+	 * @return The path of the results file.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Forces the blocks written so far to the storage device.
+	 *
+	 * @throws IOException If forcing fails.
+	 */
+	public void force() throws IOException {
+		channel.force(false);
+	}
+
+	/**
+	 * Appends a result. Safe to call from several threads.
+	 *
+	 * @param result The result to append.
+	 * @throws IOException If a full block cannot be written.
+	 */
+	public synchronized void add(GameResult result) throws IOException {
+		Integer strategy = strategyIds.get(result.getStrategy());
+		if (strategy == null) {
+			strategy = strategies.size();
+			strategies.add(result.getStrategy());
+			strategyIds.put(result.getStrategy(), strategy);
+		}
+		columns[ResultColumn.SEED.ordinal()].putLong(result.getSeed());
+		columns[ResultColumn.STRATEGY.ordinal()].putInt(strategy);
+		columns[ResultColumn.SCORE.ordinal()].putInt(result.getScore());
+		columns[ResultColumn.MAX_TILE.ordinal()].putInt(result.getMaxTile());
+		columns[ResultColumn.MOVES.ordinal()].putInt(result.getMoves());
+		columns[ResultColumn.DURATION_NANOS.ordinal()].putLong(result.getDurationNanos());
+		if (++rows == BLOCK_ROWS)
+			flushBlock();
+	}
+
+	/**
+	 * Writes the last block, the footer and the trailer, and closes the file.
+	 *
+	 * @throws IOException If writing fails.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			flushBlock();
+			int dictionaryBytes = 4;
+			List<byte[]> names = new ArrayList<>();
+			for (String strategy : strategies) {
+				byte[] name = strategy.getBytes(StandardCharsets.UTF_8);
+				names.add(name);
+				dictionaryBytes += 2 + name.length;
+			}
+			ByteBuffer footer = ByteBuffer.allocate(4 + blockOffsets.size() * 12 + dictionaryBytes + 16)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			long footerOffset = position;
+			footer.putInt(blockOffsets.size());
+			for (int b = 0; b < blockOffsets.size(); b++) {
+				footer.putLong(blockOffsets.get(b)).putInt(blockRows.get(b));
+			}
+			footer.putInt(names.size());
+			for (byte[] name : names) {
+				footer.putShort((short) name.length).put(name);
+			}
+			footer.putLong(footerOffset).putLong(MAGIC).flip();
+			writeFully(footer);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes the open block, if it has any rows, with one gathering write.
+	 */
+	private void flushBlock() throws IOException {
+		if (rows == 0)
+			return;
+		for (ByteBuffer column : columns) {
+			column.flip();
+		}
+		blockOffsets.add(position);
+		blockRows.add(rows);
+		long remaining = (long) rows * ResultColumn.ROW_BYTES;
+		while (remaining > 0) {
+			long written = channel.write(columns);
+			remaining -= written;
+			position += written;
+		}
+		for (ByteBuffer column : columns) {
+			column.clear();
+		}
+		rows = 0;
+	}
+
+	/**
+	 * The state of a writer at one point of a run: what has been written to
+	 * the file and the rows buffered for the open block.
+	 */
+	public static final class State {
+		final long position; // File offset of the next block
+		final long[] blockOffsets; // Offsets of the written blocks
+		final int[] blockRows; // Rows of the written blocks
+		final List<String> strategies; // Strategy dictionary
+		final int rows; // Rows in the open block
+		final byte[][] columns; // Values of the open block per column
+
+		State(long position, long[] blockOffsets, int[] blockRows, List<String> strategies, int rows,
+				byte[][] columns) {
+			this.position = position;
+			this.blockOffsets = blockOffsets;
+			this.blockRows = blockRows;
+			this.strategies = strategies;
+			this.rows = rows;
+			this.columns = columns;
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer);
+		}
+	}
+}
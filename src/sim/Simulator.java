@@ -0,0 +1,553 @@
+package sim;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.Game;
+import logic.GameEventBus;
+import logic.SpawnRandom;
+
+/**
+ * Plays many games with a strategy on all processors and streams the results
+ * to a columnar results file. Game {@code i} is seeded with
+ * {@code seed + i}, so a run is reproducible whatever the thread count.
+ * <p>
+ * Long runs can be checkpointed: at a fixed interval the workers pause at
+ * their next move boundary, hand over immutable copies of the games they are
+ * playing and continue, while a background thread writes the copies, the
+ * counters and the results writer's state to the checkpoint file. A run
+ * resumed from a checkpoint continues every game with its saved random
+ * streams, so it produces the same games as a run that was never stopped.
+ */
+public class Simulator {
+
+	private final Strategy strategy; // Chooses the moves
+	private final int size; // Board size
+	private final long seed; // Seed of the first game
+	private Path logDirectory; // Where move logs are written, null to not record games
+	private Path checkpointFile; // Where checkpoints are written, null to not checkpoint
+	private long checkpointNanos; // Time between checkpoints
+	private Checkpoint resumeFrom; // Checkpoint the next run continues, or null
+	private final AtomicLong completed = new AtomicLong(); // Games finished
+	private final AtomicLong scoreSum = new AtomicLong(); // Sum of the finished games' scores
+	private final AtomicLong moveSum = new AtomicLong(); // Sum of the finished games' moves
+
+	/**
+	 * Creates a simulator.
+	 *
+	 * @param strategy The strategy playing the games.
+	 * @param size     The board size.
+	 * @param seed     The seed of the first game.
+	 */
+	public Simulator(Strategy strategy, int size, long seed) {
+		this.strategy = strategy;
+		this.size = size;
+		this.seed = seed;
+	}
+
+	/**
+	 * Records every game as a move log, one file per simulation thread.
+	 *
+	 * @param directory The directory the logs are written to.
+	 */
+	public void setLogDirectory(Path directory) {
+		this.logDirectory = directory;
+	}
+
+	/**
+	 * Writes a checkpoint at a fixed interval while running.
+	 *
+	 * @param file    The checkpoint file, replaced by every checkpoint.
+	 * @param seconds The time between checkpoints.
+	 */
+	public void setCheckpoint(Path file, int seconds) {
+		this.checkpointFile = file;
+		this.checkpointNanos = TimeUnit.SECONDS.toNanos(seconds);
+	}
+
+	/**
+	 * Makes the next run continue a checkpointed run instead of starting at
+	 * the first game. The results writer passed to {@link #run} must have been
+	 * reopened with the checkpoint's {@link Checkpoint#getResults() state}.
+	 *
+	 * @param checkpoint The checkpoint to continue.
+	 */
+	public void resumeFrom(Checkpoint checkpoint) {
+		this.resumeFrom = checkpoint;
+	}
+
+	/**
+	 * @return The number of games finished, including those before a resume.
+	 */
+	public long getCompleted() {
+		return completed.get();
+	}
+
+	/**
+	 * @return The mean score of the finished games.
+	 */
+	public double getMeanScore() {
+		long games = completed.get();
+		return games == 0 ? 0 : (double) scoreSum.get() / games;
+	}
+
+	/**
+	 * Runs a simulation. Options are {@code --games n}, {@code --size n},
+	 * {@code --strategy name}, {@code --seed n}, {@code --threads n},
+	 * {@code --out file}, {@code --log directory}, which records every game as
+	 * a move log for {@link LogAnalytics}, {@code --checkpoint file} and
+	 * {@code --checkpoint-seconds n}, which checkpoint the run, and
+	 * {@code --resume file}, which continues a checkpointed run with its
+	 * saved options.
+	 *
+	 * @param args The command line options.
+	 * @throws Exception If the simulation or writing the results fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		long games = 1000;
+		int size = 4;
+		String strategy = "greedy";
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean threadsSet = false;
+		String out = "results.bin";
+		String log = null;
+		String checkpoint = null;
+		int checkpointSeconds = 60;
+		String resume = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--games":
+				games = Long.parseLong(args[++i]);
+				break;
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--strategy":
+				strategy = args[++i];
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				threadsSet = true;
+				break;
+			case "--out":
+				out = args[++i];
+				break;
+			case "--log":
+				log = args[++i];
+				break;
+			case "--checkpoint":
+				checkpoint = args[++i];
+				break;
+			case "--checkpoint-seconds":
+				checkpointSeconds = Integer.parseInt(args[++i]);
+				break;
+			case "--resume":
+				resume = args[++i];
+				break;
+			default:
+				System.err.println("Error: Unknown option " + args[i]);
+				return;
+			}
+		}
+		if (log != null && (checkpoint != null || resume != null)) {
+			System.err.println("Error: Move logs cannot be combined with checkpoints.");
+			return;
+		}
+
+		Checkpoint saved = null;
+		if (resume != null) {
+			saved = Checkpoint.read(Paths.get(resume));
+			restoreEvaluator(saved, Paths.get(resume));
+			games = saved.getGames();
+			size = saved.getSize();
+			strategy = saved.getStrategy();
+			seed = saved.getSeed();
+			out = saved.getOut();
+			if (!threadsSet && saved.getThreads() > 0)
+				threads = saved.getThreads();
+			if (checkpoint == null)
+				checkpoint = resume;
+		}
+
+		Simulator simulator = new Simulator(Strategy.parse(strategy), size, seed);
+		if (log != null)
+			simulator.setLogDirectory(Paths.get(log));
+		if (checkpoint != null)
+			simulator.setCheckpoint(Paths.get(checkpoint), checkpointSeconds);
+		if (saved != null)
+			simulator.resumeFrom(saved);
+		long start = System.nanoTime();
+		try (ResultsWriter writer = saved == null ? new ResultsWriter(Paths.get(out))
+				: new ResultsWriter(Paths.get(out), saved.getResults())) {
+			simulator.run(games, threads, writer);
+		}
+		if (checkpoint != null) // The results file is complete, a resume would redo finished work
+			Files.deleteIfExists(Paths.get(checkpoint));
+		System.out.printf("%d games in %.1f s written to %s, mean score %.1f.%n", games,
+				(System.nanoTime() - start) / 1e9, out, simulator.getMeanScore());
+	}
+
+	/**
+	 * Plays games on a pool of threads and writes their results.
+	 *
+	 * @param games   The number of games.
+	 * @param threads The number of threads.
+	 * @param writer  The results writer.
+	 * @throws Exception If a game or writing fails.
+	 */
+	public void run(long games, int threads, ResultsWriter writer) throws Exception {
+		Checkpoint resume = resumeFrom;
+		resumeFrom = null;
+		AtomicLong next = new AtomicLong(resume == null ? 0 : resume.getNext());
+		Queue<Checkpoint.InFlight> resumed = new ConcurrentLinkedQueue<>();
+		completed.set(resume == null ? 0 : resume.getCompleted());
+		scoreSum.set(resume == null ? 0 : resume.getScoreSum());
+		moveSum.set(resume == null ? 0 : resume.getMoveSum());
+		if (resume != null)
+			resumed.addAll(resume.getInFlight());
+		Pause pause = checkpointFile == null ? null : new Pause(threads);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ExecutorService checkpointWriter = null;
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			if (logDirectory != null)
+				Files.createDirectories(logDirectory);
+			for (int t = 0; t < threads; t++) {
+				Path logFile = logDirectory == null ? null : logDirectory.resolve("games-" + t + ".log");
+				workers.add(pool.submit(() -> {
+					try (GameLogWriter log = logFile == null ? null : new GameLogWriter(logFile)) {
+						Checkpoint.InFlight saved;
+						while ((saved = resumed.poll()) != null) {
+							finish(play(new Running(saved), log, pause), writer, pause);
+						}
+						for (long i = next.getAndIncrement(); i < games; i = next.getAndIncrement()) {
+							finish(play(new Running(seed + i), log, pause), writer, pause);
+						}
+					} finally {
+						if (pause != null)
+							pause.leave();
+					}
+					return null;
+				}));
+			}
+
+			if (pause != null) {
+				checkpointWriter = Executors.newSingleThreadExecutor();
+				Future<?> lastWrite = null;
+				long due = System.nanoTime() + checkpointNanos;
+				for (Future<?> worker : workers) {
+					while (true) {
+						try {
+							worker.get(Math.max(0, due - System.nanoTime()), TimeUnit.NANOSECONDS);
+							break;
+						} catch (TimeoutException e) {
+							due = System.nanoTime() + checkpointNanos;
+							if (lastWrite != null && !lastWrite.isDone())
+								continue; // The previous checkpoint is still being written
+							if (lastWrite != null)
+								reportFailedWrite(lastWrite, checkpointFile);
+							Checkpoint checkpoint = capture(games, threads, next, resumed, writer, pause);
+							lastWrite = checkpointWriter.submit(() -> {
+								writer.force();
+								checkpoint.write(checkpointFile);
+								return null;
+							});
+						}
+					}
+				}
+				if (lastWrite != null)
+					lastWrite.get();
+			} else {
+				for (Future<?> worker : workers) {
+					worker.get();
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			if (checkpointWriter != null)
+				checkpointWriter.shutdown();
+		}
+	}
+
+	/**
+	 * Reports a checkpoint write that failed, so a long run does not go on
+	 * unnoticed without a valid checkpoint. The next checkpoint is written as
+	 * usual.
+	 *
+	 * @param write The finished write.
+	 * @param file  The checkpoint file.
+	 */
+	private static void reportFailedWrite(Future<?> write, Path file) {
+		try {
+			write.get();
+		} catch (ExecutionException e) {
+			System.err.println("Error: Failed to write the checkpoint " + file + ": " + e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // Not blocking, the write is done
+		}
+	}
+
+	/**
+	 * Pauses the workers and copies the state of the run: the games being
+	 * played and the resumed games no worker has taken up yet. The copy is
+	 * immutable, so it can be written while the workers continue.
+	 *
+	 * @param games   The number of games in the run.
+	 * @param threads The number of threads.
+	 * @param next    The index of the next game to start.
+	 * @param resumed The resumed games not started yet.
+	 * @param writer  The results writer.
+	 * @param pause   The workers' pause point.
+	 * @return The checkpoint.
+	 * @throws InterruptedException If interrupted while waiting for the
+	 *                              workers.
+	 */
+	private Checkpoint capture(long games, int threads, AtomicLong next, Queue<Checkpoint.InFlight> resumed,
+			ResultsWriter writer, Pause pause) throws InterruptedException {
+		List<Checkpoint.InFlight> inFlight = pause.stop();
+		try {
+			inFlight.addAll(resumed); // Stopped workers do not take games from the queue
+			String weights = "";
+			String weightsFile = System.getProperty("evaluator.weights");
+			if (weightsFile != null) {
+				try {
+					weights = new String(Files.readAllBytes(Paths.get(weightsFile)), StandardCharsets.UTF_8);
+				} catch (IOException e) {
+					System.err.println("Error: Failed to read the evaluator weights for the checkpoint.");
+				}
+			}
+			return new Checkpoint(strategy.name(), size, seed, games, threads, writer.getFile().toString(),
+					System.getProperty("ai.evaluator", ""), weights, Math.min(next.get(), games), completed.get(),
+					scoreSum.get(), moveSum.get(), writer.snapshot(), inFlight);
+		} finally {
+			pause.release();
+		}
+	}
+
+	/**
+	 * Restores the evaluator configuration saved in a checkpoint, so a
+	 * resumed search scores positions with the same weights.
+	 *
+	 * @param checkpoint The checkpoint.
+	 * @param file       The checkpoint file; saved weights are written next to
+	 *                   it.
+	 * @throws IOException If the weights cannot be written.
+	 */
+	private static void restoreEvaluator(Checkpoint checkpoint, Path file) throws IOException {
+		if (!checkpoint.getEvaluator().isEmpty())
+			System.setProperty("ai.evaluator", checkpoint.getEvaluator());
+		if (!checkpoint.getWeights().isEmpty()) {
+			Path weights = file.resolveSibling(file.getFileName() + ".weights");
+			Files.write(weights, checkpoint.getWeights().getBytes(StandardCharsets.UTF_8));
+			System.setProperty("evaluator.weights", weights.toString());
+		}
+	}
+
+	/**
+	 * Records a finished game and gives a pending checkpoint the chance to
+	 * run between games.
+	 *
+	 * @param result The result of the game.
+	 * @param writer The results writer.
+	 * @param pause  The workers' pause point, or null.
+	 * @throws IOException          If the result cannot be written.
+	 * @throws InterruptedException If interrupted while paused.
+	 */
+	private void finish(GameResult result, ResultsWriter writer, Pause pause)
+			throws IOException, InterruptedException {
+		writer.add(result);
+		completed.incrementAndGet();
+		scoreSum.addAndGet(result.getScore());
+		moveSum.addAndGet(result.getMoves());
+		if (pause != null)
+			pause.check(null);
+	}
+
+	/**
+	 * Plays one game to the end.
+	 *
+	 * @param gameSeed The seed of the game.
+	 * @param log      The move log to record the game in, or null.
+	 * @return The result.
+	 * @throws IOException If the game cannot be logged.
+	 */
+	public GameResult play(long gameSeed, GameLogWriter log) throws IOException {
+		try {
+			return play(new Running(gameSeed), log, null);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e); // Only pausing waits
+		}
+	}
+
+	/**
+	 * Plays a game from its current position to the end, pausing at move
+	 * boundaries when a checkpoint is taken.
+	 *
+	 * @param running The game.
+	 * @param log     The move log to record the game in, or null.
+	 * @param pause   The workers' pause point, or null.
+	 * @return The result.
+	 * @throws IOException          If the game cannot be logged.
+	 * @throws InterruptedException If interrupted while paused.
+	 */
+	private GameResult play(Running running, GameLogWriter log, Pause pause)
+			throws IOException, InterruptedException {
+		Game game = running.game;
+		BoardSnapshot initial = game.snapshot();
+		GameEventBus.Subscription events = log == null ? null : log.begin(game);
+		BoardSnapshot position = initial;
+		while (position.legalMoves() != 0) {
+			if (pause != null)
+				pause.check(running);
+			Direction move = strategy.choose(position, running.random);
+			game.move(move);
+			running.moves++;
+			if (events != null)
+				log.record(events);
+			position = game.snapshot();
+		}
+		if (events != null)
+			log.end(running.seed, initial, events);
+		return new GameResult(running.seed, strategy.name(), game.getScore(), position.maxTile(), running.moves,
+				running.elapsedNanos + System.nanoTime() - running.start);
+	}
+
+	/**
+	 * A game being played by a worker.
+	 */
+	private final class Running {
+		final long seed; // Seed of the game
+		final Game game; // The game
+		final SpawnRandom random; // The strategy's stream
+		final long start; // When this run started playing the game
+		final long elapsedNanos; // Time spent before a resume
+		int moves; // Moves made
+
+		/**
+		 * Starts a new game.
+		 */
+		Running(long seed) {
+			this.seed = seed;
+			this.game = new Game(size, seed);
+			this.random = new SpawnRandom(~seed);
+			this.start = System.nanoTime();
+			this.elapsedNanos = 0;
+		}
+
+		/**
+		 * Continues a checkpointed game.
+		 */
+		Running(Checkpoint.InFlight saved) {
+			this.seed = saved.seed;
+			this.game = Game.fromSnapshot(saved.position);
+			game.setRandomState(saved.spawnState);
+			this.random = new SpawnRandom(0);
+			random.setState(saved.strategyState);
+			this.start = System.nanoTime();
+			this.elapsedNanos = saved.elapsedNanos;
+			this.moves = saved.moves;
+		}
+
+		/**
+		 * @return An immutable copy of the game.
+		 */
+		Checkpoint.InFlight capture() {
+			return new Checkpoint.InFlight(seed, game.snapshot(), moves, elapsedNanos + System.nanoTime() - start,
+					game.getRandomState(), random.getState());
+		}
+	}
+
+	/**
+	 * The point where workers wait while a checkpoint is taken. Workers only
+	 * read a volatile flag unless a checkpoint has been requested.
+	 */
+	private static final class Pause {
+		private volatile boolean requested; // Whether workers should stop at their next check
+		private int running; // Workers that have not finished, guarded by this
+		private int waiting; // Workers stopped for the current checkpoint, guarded by this
+		private long generation; // Checkpoints taken, guarded by this
+		private final List<Checkpoint.InFlight> games = new ArrayList<>(); // Copies handed over, guarded by this
+
+		Pause(int workers) {
+			this.running = workers;
+		}
+
+		/**
+		 * Called by a worker at a move or game boundary; waits while a
+		 * checkpoint is taken.
+		 *
+		 * @param game The worker's game, or null between games.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		void check(Running game) throws InterruptedException {
+			if (!requested)
+				return;
+			synchronized (this) {
+				if (!requested)
+					return;
+				if (game != null)
+					games.add(game.capture());
+				waiting++;
+				notifyAll();
+				long current = generation;
+				while (generation == current) {
+					wait();
+				}
+			}
+		}
+
+		/**
+		 * Called by a worker when it has no more games.
+		 */
+		synchronized void leave() {
+			running--;
+			notifyAll();
+		}
+
+		/**
+		 * Stops every worker at its next check.
+		 *
+		 * @return The games being played.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		synchronized List<Checkpoint.InFlight> stop() throws InterruptedException {
+			requested = true;
+			while (waiting < running) {
+				wait();
+			}
+			return new ArrayList<>(games);
+		}
+
+		/**
+		 * Lets the stopped workers continue.
+		 */
+		synchronized void release() {
+			requested = false;
+			waiting = 0;
+			games.clear();
+			generation++;
+			notifyAll();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package sim;
+
+import logic.BoardSnapshot;
+import logic.Direction;
+import logic.SpawnRandom;
+import logic.ai.Expectimax;
+
+/**
+ * Chooses moves for simulated games. Strategies are shared by all simulation
+ * threads, so they must not keep per-game state; randomness comes from the
+ * game's own stream.
+ */
+public interface Strategy {
+
+	/**
+	 * @return The name recorded with the results.
+	 */
+	String name();
+
+	/**
+	 * Chooses a move.
+	 *
+	 * @param position The position to move from; it has at least one legal
+	 *                 move.
+	 * @param random   The strategy's random stream for this game.
+	 * @return The move, which must be legal.
+	 */
+	Direction choose(BoardSnapshot position, SpawnRandom random);
+
+	/**
+	 * Creates a strategy from its name: {@code random}, {@code greedy} (the
+	 * move gaining the most points) or {@code expectimax[:depth]}.
+	 *
+	 * @param spec The strategy name and parameters.
+	 * @return The strategy.
+	 * @throws IllegalArgumentException If the name is unknown.
+	 */
+	static Strategy parse(String spec) {
+		String[] parts = spec.split(":");
+		switch (parts[0]) {
+		case "random":
+			return new Strategy() {
+				@Override
+				public String name() {
+					return spec;
+				}
+
+				@Override
+				public Direction choose(BoardSnapshot position, SpawnRandom random) {
+					int legal = position.legalMoves();
+					int pick = random.nextInt(Integer.bitCount(legal));
+					for (Direction direction : Direction.values()) {
+						if ((legal & direction.bit()) != 0 && pick-- == 0)
+							return direction;
+					}
+					throw new IllegalStateException("No legal move.");
+				}
+			};
+		case "greedy":
+			return new Strategy() {
+				@Override
+				public String name() {
+					return spec;
+				}
+
+				@Override
+				public Direction choose(BoardSnapshot position, SpawnRandom random) {
+					Direction best = null;
+					int bestGain = -1;
+					for (Direction direction : Direction.values()) {
+						BoardSnapshot next = position.withMove(direction);
+						int gain = next.score() - position.score();
+						if (next != position && gain > bestGain) {
+							best = direction;
+							bestGain = gain;
+						}
+					}
+					return best;
+				}
+			};
+		case "expectimax":
+			Expectimax search = new Expectimax(parts.length > 1 ? Integer.parseInt(parts[1]) : 2);
+			return new Strategy() {
+				@Override
+				public String name() {
+					return spec;
+				}
+
+				@Override
+				public Direction choose(BoardSnapshot position, SpawnRandom random) {
+					return search.bestMove(position, () -> false);
+				}
+			};
+		default:
+			throw new IllegalArgumentException("Unknown strategy " + spec + ".");
+		}
+	}
+}